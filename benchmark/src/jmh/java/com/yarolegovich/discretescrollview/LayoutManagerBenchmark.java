@@ -0,0 +1,200 @@
+package com.yarolegovich.discretescrollview;
+
+import android.content.Context;
+import android.view.View;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Hot paths of DiscreteScrollLayoutManager against PooledRecyclerViewProxy.
+ * Run with ./gradlew :benchmark:jmh, the gc profiler reports bytes allocated per op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+public class LayoutManagerBenchmark {
+
+    private static final int RECYCLER_WIDTH = 1080;
+    private static final int RECYCLER_HEIGHT = 1920;
+    private static final int CHILD_SIZE = 600;
+    //Scroll step of a drag frame
+    private static final int SCROLL_STEP = CHILD_SIZE / 16;
+
+    @Param({"10", "1000", "100000", "10000000"})
+    public int itemCount;
+
+    @Param({"0", "2", "10"})
+    public int offscreenItems;
+
+    @Param({"HORIZONTAL", "VERTICAL"})
+    public DSVOrientation orientation;
+
+    private DiscreteScrollLayoutManager layoutManager;
+    private PooledRecyclerViewProxy proxy;
+    private RecyclerView.State state;
+    //State of the data set with one more item, so that notifications agree with the item count
+    private RecyclerView.State stateWithInsertedItem;
+    private int scrollDirection;
+
+    @Setup
+    public void setUp() {
+        layoutManager = new DiscreteScrollLayoutManager(
+                mock(Context.class, withSettings().stubOnly()),
+                new NoOpScrollStateListener(),
+                orientation);
+        proxy = new MockViewsProxy(layoutManager, itemCount);
+        layoutManager.setRecyclerViewProxy(proxy);
+        layoutManager.setOrientationHelper(createOrientationHelper());
+        layoutManager.setOffscreenItems(offscreenItems);
+
+        state = mock(RecyclerView.State.class, withSettings().stubOnly());
+        when(state.getItemCount()).thenReturn(itemCount);
+        when(state.isMeasuring()).thenReturn(false);
+        stateWithInsertedItem = mock(RecyclerView.State.class, withSettings().stubOnly());
+        when(stateWithInsertedItem.getItemCount()).thenReturn(itemCount + 1);
+        when(stateWithInsertedItem.isMeasuring()).thenReturn(false);
+
+        layout();
+        layoutManager.onLayoutCompleted(state);
+        //Extra layout space depends on the child size which is known only after the first layout
+        layoutManager.setOffscreenItems(offscreenItems);
+        layout();
+        scrollDirection = 1;
+    }
+
+    @Benchmark
+    public int scrollBy() {
+        int consumed = layoutManager.scrollBy(scrollDirection * SCROLL_STEP, null);
+        if (consumed == 0) {
+            //The drag reached the next item, let the layout manager change the current one
+            layoutManager.onScrollStateChanged(RecyclerView.SCROLL_STATE_IDLE);
+            layoutManager.onScrollStateChanged(RecyclerView.SCROLL_STATE_DRAGGING);
+            int current = layoutManager.getCurrentPosition();
+            if (current == 0 || current == itemCount - 1) {
+                scrollDirection = -scrollDirection;
+            }
+        }
+        return consumed;
+    }
+
+    @Benchmark
+    public int fill() {
+        layoutManager.fill(null);
+        return proxy.getChildCount();
+    }
+
+    @Benchmark
+    public int onLayoutChildren() {
+        layout();
+        return proxy.getChildCount();
+    }
+
+    @Benchmark
+    public int onFling() {
+        layoutManager.onFling(RECYCLER_WIDTH, RECYCLER_HEIGHT);
+        int pendingScroll = layoutManager.pendingScroll;
+        layoutManager.pendingPosition = DiscreteScrollLayoutManager.NO_POSITION;
+        layoutManager.pendingScroll = 0;
+        return pendingScroll;
+    }
+
+    @Benchmark
+    public int onItemsChanged() {
+        layoutManager.onItemsChanged(null);
+        layout();
+        return proxy.getChildCount();
+    }
+
+    @Benchmark
+    public int onItemsAddedAndRemoved() {
+        proxy.setAdapterItemCount(itemCount + 1);
+        layoutManager.onItemsAdded(null, 0, 1);
+        layout(stateWithInsertedItem);
+        proxy.setAdapterItemCount(itemCount);
+        layoutManager.onItemsRemoved(null, 0, 1);
+        layout();
+        return proxy.getChildCount();
+    }
+
+    private void layout() {
+        layout(state);
+    }
+
+    private void layout(RecyclerView.State state) {
+        layoutManager.onLayoutChildren(null, state);
+        proxy.recycleScrap();
+    }
+
+    //Real helpers read child bounds from RecyclerView, the proxy tracks them instead
+    private DSVOrientation.Helper createOrientationHelper() {
+        if (orientation == DSVOrientation.HORIZONTAL) {
+            return new DSVOrientation.HorizontalHelper() {
+                @Override
+                public boolean hasNewBecomeVisible(DiscreteScrollLayoutManager lm) {
+                    return proxy.hasNewBecomeVisible(lm, true);
+                }
+            };
+        } else {
+            return new DSVOrientation.VerticalHelper() {
+                @Override
+                public boolean hasNewBecomeVisible(DiscreteScrollLayoutManager lm) {
+                    return proxy.hasNewBecomeVisible(lm, false);
+                }
+            };
+        }
+    }
+
+    //Views only serve as identities, the proxy tracks their bounds
+    private static class MockViewsProxy extends PooledRecyclerViewProxy {
+
+        MockViewsProxy(DiscreteScrollLayoutManager layoutManager, int itemCount) {
+            super(layoutManager,
+                    RECYCLER_WIDTH, RECYCLER_HEIGHT,
+                    CHILD_SIZE, CHILD_SIZE,
+                    itemCount);
+        }
+
+        @Override
+        protected View createView() {
+            return mock(View.class, withSettings().stubOnly());
+        }
+    }
+
+    private static class NoOpScrollStateListener implements DiscreteScrollLayoutManager.ScrollStateListener {
+
+        @Override
+        public void onIsBoundReachedFlagChange(boolean isBoundReached) {
+        }
+
+        @Override
+        public void onScrollStart() {
+        }
+
+        @Override
+        public void onScrollEnd() {
+        }
+
+        @Override
+        public void onScroll(float currentViewPosition) {
+        }
+
+        @Override
+        public void onCurrentViewFirstLayout() {
+        }
+
+        @Override
+        public void onDataSetChangeChangedPosition() {
+        }
+    }
+}
@@ -92,9 +92,9 @@ public enum DSVOrientation {
             int leftBound = -lm.getExtraLayoutSpace();
             int rightBound = lm.getWidth() + lm.getExtraLayoutSpace();
             boolean isNewVisibleFromLeft = lm.getDecoratedLeft(firstChild) > leftBound
-                    && lm.getPosition(firstChild) > 0;
+                    && lm.hasItemsBefore(firstChild);
             boolean isNewVisibleFromRight = lm.getDecoratedRight(lastChild) < rightBound
-                    && lm.getPosition(lastChild) < lm.getItemCount() - 1;
+                    && lm.hasItemsAfter(lastChild);
             return isNewVisibleFromLeft || isNewVisibleFromRight;
         }
 
@@ -184,9 +184,9 @@ public enum DSVOrientation {
             int topBound = -lm.getExtraLayoutSpace();
             int bottomBound = lm.getHeight() + lm.getExtraLayoutSpace();
             boolean isNewVisibleFromTop = lm.getDecoratedTop(firstChild) > topBound
-                    && lm.getPosition(firstChild) > 0;
+                    && lm.hasItemsBefore(firstChild);
             boolean isNewVisibleFromBottom = lm.getDecoratedBottom(lastChild) < bottomBound
-                    && lm.getPosition(lastChild) < lm.getItemCount() - 1;
+                    && lm.hasItemsAfter(lastChild);
             return isNewVisibleFromTop || isNewVisibleFromBottom;
         }
 
@@ -0,0 +1,39 @@
+package com.yarolegovich.discretescrollview;
+
+import androidx.core.os.TraceCompat;
+
+/**
+ * Named sections for system traces. They are disabled by default and cost a single field read then.
+ */
+class DSVTrace {
+
+    static final String ON_LAYOUT_CHILDREN = "DSV onLayoutChildren";
+    static final String INIT_CHILD_DIMENSIONS = "DSV initChildDimensions";
+    static final String FILL = "DSV fill";
+    static final String SCROLL_BY = "DSV scrollBy";
+    static final String TRANSFORM = "DSV applyItemTransform";
+    static final String ON_SCROLL_END = "DSV onScrollEnd";
+    static final String DISPATCH_SCROLL_START = "DSV dispatch onScrollStart";
+    static final String DISPATCH_SCROLL_END = "DSV dispatch onScrollEnd";
+    static final String DISPATCH_SCROLL = "DSV dispatch onScroll";
+    static final String DISPATCH_ITEM_CHANGED = "DSV dispatch onCurrentItemChanged";
+
+    //Must be changed only on the UI thread, otherwise sections can end up unbalanced
+    private static boolean enabled;
+
+    static void setEnabled(boolean enabled) {
+        DSVTrace.enabled = enabled;
+    }
+
+    static void beginSection(String name) {
+        if (enabled) {
+            TraceCompat.beginSection(name);
+        }
+    }
+
+    static void endSection() {
+        if (enabled) {
+            TraceCompat.endSection();
+        }
+    }
+}
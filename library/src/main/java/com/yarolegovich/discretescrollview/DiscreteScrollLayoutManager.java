@@ -2,9 +2,9 @@ package com.yarolegovich.discretescrollview;
 
 import android.content.Context;
 import android.graphics.Point;
-import android.graphics.PointF;
 import android.os.Bundle;
 import android.os.Parcelable;
+import android.util.AttributeSet;
 import android.util.SparseArray;
 import android.view.View;
 import android.view.ViewGroup;
@@ -12,9 +12,11 @@ import android.view.accessibility.AccessibilityEvent;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.recyclerview.widget.LinearSmoothScroller;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.yarolegovich.discretescrollview.DiscreteScrollMetrics.Phase;
+import com.yarolegovich.discretescrollview.physics.DecayScrollPhysics;
+import com.yarolegovich.discretescrollview.physics.DiscreteScrollPhysics;
 import com.yarolegovich.discretescrollview.transform.DiscreteScrollItemTransformer;
 
 import java.util.Locale;
@@ -30,8 +32,20 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
     private static final int DEFAULT_TIME_FOR_ITEM_SETTLE = 300;
     private static final int DEFAULT_FLING_THRESHOLD = 2100; //Decrease to increase sensitivity.
     private static final int DEFAULT_TRANSFORM_CLAMP_ITEM_COUNT = 1;
+    private static final int DEFAULT_PREFETCH_ITEM_COUNT = 1;
+    private static final int DEFAULT_INITIAL_PREFETCH_ITEM_COUNT = 3;
+    private static final int DEFAULT_SMOOTH_SCROLL_JUMP_THRESHOLD = 20;
+    //How many items are animated after a long smooth scroll jumped close to its target
+    private static final int SMOOTH_SCROLL_JUMP_SETTLE_ITEMS = 3;
+    //Item count after which variable item size mode falls back to the size of the first item.
+    //ItemSizeIndex takes 12 bytes per item (int size and long tree node), so about 3 MB at this count
+    private static final int MAX_VARIABLE_SIZE_ITEM_COUNT = 1 << 18;
+    //Virtual positions of circular layout go up to three times the item count
+    private static final int MAX_CIRCULAR_ITEM_COUNT = Integer.MAX_VALUE / 4;
 
     protected static final float SCROLL_TO_SNAP_TO_ANOTHER_ITEM = 0.6f;
+    //Transform progress changes smaller than this are not applied to the child again
+    private static final float TRANSFORM_POSITION_EPSILON = 0.0001f;
 
     //This field will take value of all visible view's center points during the fill phase
     protected Point viewCenterIterator;
@@ -48,20 +62,46 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
     protected int pendingScroll;
     protected int currentPosition;
     protected int pendingPosition;
+    //Target of a long smooth scroll, settle to it starts after the layout around the jump position
+    protected int pendingJumpPosition;
 
     protected SparseArray<View> detachedCache;
+    //Attached views by adapter position, so that lookups during scroll don't scan all children
+    protected SparseArray<View> attachedViews;
+
+    //Range of adapter positions which are currently attached. first > last means that the range is empty
+    protected int firstAttachedPosition;
+    protected int lastAttachedPosition;
 
     private DSVOrientation.Helper orientationHelper;
 
     protected boolean isFirstOrEmptyLayout;
-
-    private Context context;
+    //Set when size, orientation or adapter changed, so attached views are measured for the old geometry
+    protected boolean childDimensionsInvalid;
+    //Current position and scroll for which attached children were laid out
+    protected int laidOutPosition;
+    protected int laidOutScrolled;
 
     private int timeForItemSettle;
+    //Release velocity of the last fling, consumed by the settle it starts
+    private float settleVelocity;
     private int offscreenItems;
     private int transformClampItemCount;
+    private int prefetchItemCount;
+    private int initialPrefetchItemCount;
+    private int smoothScrollJumpThreshold;
 
     private boolean dataSetChangeShiftedPosition;
+    //Positions are shifted by the adapter without changing the current item, so listeners are not notified
+    protected boolean isPositionShiftSilent;
+
+    private boolean variableItemSize;
+    //Size of an item with margins and decorations, both are 0 if items are measured
+    private int fixedItemWidth, fixedItemHeight;
+    //If set, fixed item size is resolved from the size of the RecyclerView
+    private float itemWidthFraction, itemHeightFraction;
+    private boolean infiniteScrollEnabled;
+    final ItemSizeIndex sizeIndex;
 
     private int flingThreshold;
     private boolean shouldSlideOnFling;
@@ -75,15 +115,24 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
     private final ScrollStateListener scrollStateListener;
     private DiscreteScrollItemTransformer itemTransformer;
 
+    @NonNull
+    private DiscreteScrollPhysics scrollPhysics = new DecayScrollPhysics();
+
+    @Nullable
+    private DiscreteScrollMetrics metrics;
+
+    private final DiscreteSmoothScroller smoothScroller;
+
     private RecyclerViewProxy recyclerViewProxy;
 
     public DiscreteScrollLayoutManager(
             @NonNull Context c,
             @NonNull ScrollStateListener scrollStateListener,
             @NonNull DSVOrientation orientation) {
-        this.context = c;
         this.timeForItemSettle = DEFAULT_TIME_FOR_ITEM_SETTLE;
         this.pendingPosition = NO_POSITION;
+        this.pendingJumpPosition = NO_POSITION;
+        this.smoothScrollJumpThreshold = DEFAULT_SMOOTH_SCROLL_JUMP_THRESHOLD;
         this.currentPosition = NO_POSITION;
         this.flingThreshold = DEFAULT_FLING_THRESHOLD;
         this.shouldSlideOnFling = false;
@@ -91,48 +140,130 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
         this.currentViewCenter = new Point();
         this.viewCenterIterator = new Point();
         this.detachedCache = new SparseArray<>();
+        this.attachedViews = new SparseArray<>();
         this.scrollStateListener = scrollStateListener;
         this.orientationHelper = orientation.createHelper();
         this.recyclerViewProxy = new RecyclerViewProxy(this);
+        this.sizeIndex = new ItemSizeIndex();
+        this.smoothScroller = new DiscreteSmoothScroller();
         this.transformClampItemCount = DEFAULT_TRANSFORM_CLAMP_ITEM_COUNT;
+        this.prefetchItemCount = DEFAULT_PREFETCH_ITEM_COUNT;
+        this.initialPrefetchItemCount = DEFAULT_INITIAL_PREFETCH_ITEM_COUNT;
+        clearAttachedRange();
     }
 
     @Override
     public void onLayoutChildren(RecyclerView.Recycler recycler, RecyclerView.State state) {
         if (state.getItemCount() == 0) {
             recyclerViewProxy.removeAndRecycleAllViews(recycler);
+            clearAttachedRange();
             currentPosition = pendingPosition = NO_POSITION;
             scrolled = pendingScroll = 0;
             return;
         }
 
+        DSVTrace.beginSection(DSVTrace.ON_LAYOUT_CHILDREN);
+
         ensureValidPosition(state);
 
         updateRecyclerDimensions(state);
 
+        if (canRelayoutInPlace(state)) {
+            //Nothing moved, so only children which requested layout themselves are laid out again
+            relayoutRequestedChildren();
+            fill(recycler);
+            applyItemTransformToChildren();
+            DSVTrace.endSection();
+            return;
+        }
+
         //onLayoutChildren may be called multiple times and this check is required so that the flag
         //won't be cleared until onLayoutCompleted
         if (!isFirstOrEmptyLayout) {
             isFirstOrEmptyLayout = recyclerViewProxy.getChildCount() == 0;
-            if (isFirstOrEmptyLayout) {
-                initChildDimensions(recycler);
-            }
+            childDimensionsInvalid |= isFirstOrEmptyLayout;
         }
 
         recyclerViewProxy.detachAndScrapAttachedViews(recycler);
 
+        if (childDimensionsInvalid) {
+            //Scrapped views are reused for the same positions without being inflated or bound again,
+            //only their geometry is computed anew
+            childDimensionsInvalid = false;
+            clearAttachedRange();
+            initChildDimensions(recycler);
+        }
+
         fill(recycler);
 
+        invalidateItemTransforms();
         applyItemTransformToChildren();
+
+        DSVTrace.endSection();
+    }
+
+    private boolean canRelayoutInPlace(RecyclerView.State state) {
+        if (state.isPreLayout() || state.didStructureChange()
+                || childDimensionsInvalid || isFirstOrEmptyLayout
+                || pendingJumpPosition != NO_POSITION || isVariableItemSize()) {
+            return false;
+        }
+        if (!areChildrenInPlace()) {
+            return false;
+        }
+        for (int i = 0; i < recyclerViewProxy.getChildCount(); i++) {
+            ViewGroup.LayoutParams params = recyclerViewProxy.getChildAt(i).getLayoutParams();
+            if (!(params instanceof RecyclerView.LayoutParams)) {
+                return false;
+            }
+            RecyclerView.LayoutParams lp = (RecyclerView.LayoutParams) params;
+            if (lp.isViewInvalid() || lp.isItemRemoved() || lp.isItemChanged() || lp.viewNeedsUpdate()) {
+                //Such children must go through the recycler to be bound again
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean areChildrenInPlace() {
+        int childCount = recyclerViewProxy.getChildCount();
+        if (childCount == 0 || lastAttachedPosition - firstAttachedPosition + 1 != childCount) {
+            return false;
+        }
+        //Children are where they should be if the scroll offset is the same relative to the position they were laid out for
+        return laidOutScrolled == scrolled + getCenterDistance(laidOutPosition, currentPosition);
+    }
+
+    private void relayoutRequestedChildren() {
+        orientationHelper.setCurrentViewCenter(recyclerCenter, scrolled, currentViewCenter);
+        for (int i = 0; i < recyclerViewProxy.getChildCount(); i++) {
+            View child = recyclerViewProxy.getChildAt(i);
+            if (!child.isLayoutRequested()) {
+                continue;
+            }
+            if (hasFixedItemSize()) {
+                recyclerViewProxy.measureChildExactly(child, fixedItemWidth, fixedItemHeight);
+            } else {
+                recyclerViewProxy.measureChild(child);
+            }
+            int position = toLayoutPosition(recyclerViewProxy.getPosition(child));
+            computeViewCenter(position, viewCenterIterator);
+            recyclerViewProxy.layoutDecoratedWithMargins(child,
+                    viewCenterIterator.x - childHalfWidth, viewCenterIterator.y - childHalfHeight,
+                    viewCenterIterator.x + childHalfWidth, viewCenterIterator.y + childHalfHeight);
+            //Size of the child might have changed and transforms like pivot depend on it
+            invalidateItemTransform(child);
+        }
     }
 
     private void ensureValidPosition(RecyclerView.State state) {
-        if (currentPosition == NO_POSITION || currentPosition >= state.getItemCount()) {
+        if (currentPosition == NO_POSITION || (!isCircular() && currentPosition >= state.getItemCount())) {
             //currentPosition might have been assigned in onRestoreInstanceState()
             //which can lead to a crash (position out of bounds) when data set
             //is not persisted across rotations
             currentPosition = 0;
         }
+        normalizeCurrentPosition();
     }
 
     @Override
@@ -141,17 +272,37 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
             scrollStateListener.onCurrentViewFirstLayout();
             isFirstOrEmptyLayout = false;
         } else if (dataSetChangeShiftedPosition) {
-            scrollStateListener.onDataSetChangeChangedPosition();
+            if (!isPositionShiftSilent) {
+                scrollStateListener.onDataSetChangeChangedPosition();
+            }
             dataSetChangeShiftedPosition = false;
         }
+        isPositionShiftSilent = false;
+        if (pendingJumpPosition != NO_POSITION) {
+            int target = pendingJumpPosition;
+            pendingJumpPosition = NO_POSITION;
+            if (isInBounds(target)) {
+                startSmoothPendingScroll(target);
+            }
+        }
     }
 
     protected void initChildDimensions(RecyclerView.Recycler recycler) {
-        View viewToMeasure = recyclerViewProxy.getMeasuredChildForAdapterPosition(0, recycler);
-
-        int childViewWidth = recyclerViewProxy.getMeasuredWidthWithMargin(viewToMeasure);
-        int childViewHeight = recyclerViewProxy.getMeasuredHeightWithMargin(viewToMeasure);
+        DSVTrace.beginSection(DSVTrace.INIT_CHILD_DIMENSIONS);
+        if (hasFixedItemSize()) {
+            //No need to bind and measure an item just to learn its size
+            setChildDimensions(fixedItemWidth, fixedItemHeight);
+        } else {
+            View viewToMeasure = recyclerViewProxy.getMeasuredChildForAdapterPosition(0, recycler);
+            setChildDimensions(
+                    recyclerViewProxy.getMeasuredWidthWithMargin(viewToMeasure),
+                    recyclerViewProxy.getMeasuredHeightWithMargin(viewToMeasure));
+            recyclerViewProxy.detachAndScrapView(viewToMeasure, recycler);
+        }
+        DSVTrace.endSection();
+    }
 
+    private void setChildDimensions(int childViewWidth, int childViewHeight) {
         childHalfWidth = childViewWidth / 2;
         childHalfHeight = childViewHeight / 2;
 
@@ -161,7 +312,7 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
 
         extraLayoutSpace = scrollToChangeCurrent * offscreenItems;
 
-        recyclerViewProxy.detachAndScrapView(viewToMeasure, recycler);
+        resetItemSizes();
     }
 
     protected void updateRecyclerDimensions(RecyclerView.State state) {
@@ -171,7 +322,13 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
         if (dimensionsChanged) {
             viewWidth = recyclerViewProxy.getWidth();
             viewHeight = recyclerViewProxy.getHeight();
-            recyclerViewProxy.removeAllViews();
+            if (hasItemSizeFraction()) {
+                //Attached views are scrapped by the layout and measured with the new size when they are reused
+                resolveItemSizeFraction();
+                clearAttachedRange();
+            } else {
+                childDimensionsInvalid = true;
+            }
         }
         recyclerCenter.set(
                 recyclerViewProxy.getWidth() / 2,
@@ -179,60 +336,161 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
     }
 
     protected void fill(RecyclerView.Recycler recycler) {
-        cacheAndDetachAttachedViews();
-
+        DSVTrace.beginSection(DSVTrace.FILL);
+        long start = startPhase();
         orientationHelper.setCurrentViewCenter(recyclerCenter, scrolled, currentViewCenter);
 
         final int endBound = orientationHelper.getViewEnd(
                 recyclerViewProxy.getWidth(),
                 recyclerViewProxy.getHeight());
 
-        //Layout current
-        if (isViewVisible(currentViewCenter, endBound)) {
-            layoutView(recycler, currentPosition, currentViewCenter);
+        if (canFillIncrementally(endBound)) {
+            fillEdges(recycler, endBound);
+        } else {
+            fillFromAnchor(recycler, endBound);
+        }
+        laidOutPosition = currentPosition;
+        laidOutScrolled = scrolled;
+        endPhase(Phase.FILL, start);
+        DSVTrace.endSection();
+    }
+
+    private void fillFromAnchor(RecyclerView.Recycler recycler, int endBound) {
+        cacheAndDetachAttachedViews();
+        clearAttachedRange();
+
+        //Anchor is the item closest to the center, so walks from it stop at the first invisible item
+        //no matter how far currentPosition is during a smooth scroll
+        int anchor = currentPosition + getPassedPositions(scrolled);
+        if (!isCircular()) {
+            anchor = Math.min(Math.max(0, anchor), recyclerViewProxy.getItemCount() - 1);
+        }
+        if (isPositionVisible(anchor, endBound)) {
+            layoutView(recycler, anchor, viewCenterIterator);
         }
 
-        //Layout items before the current item
-        layoutViews(recycler, Direction.START, endBound);
+        //Layout items before the anchor
+        layoutViews(recycler, anchor, Direction.START, endBound);
 
-        //Layout items after the current item
-        layoutViews(recycler, Direction.END, endBound);
+        //Layout items after the anchor
+        layoutViews(recycler, anchor, Direction.END, endBound);
 
         recycleDetachedViewsAndClearCache(recycler);
     }
 
-    private void layoutViews(RecyclerView.Recycler recycler, Direction direction, int endBound) {
-        final int positionStep = direction.applyTo(1);
+    private boolean canFillIncrementally(int endBound) {
+        int attachedCount = lastAttachedPosition - firstAttachedPosition + 1;
+        //The range is trusted only while it matches the actual children
+        if (attachedCount <= 0 || attachedCount != recyclerViewProxy.getChildCount()) {
+            return false;
+        }
+        return isPositionVisible(firstAttachedPosition, endBound)
+                || isPositionVisible(lastAttachedPosition, endBound);
+    }
 
-        //Predictive layout is required when we are doing smooth fast scroll towards pendingPosition
-        boolean noPredictiveLayoutRequired = pendingPosition == NO_POSITION
-                || !direction.sameAs(pendingPosition - currentPosition);
+    /**
+     * Keeps attached views where they are, recycles the ones which left the layout window
+     * and adds the ones which entered it at the edges.
+     */
+    private void fillEdges(RecyclerView.Recycler recycler, int endBound) {
+        int first = firstAttachedPosition, last = lastAttachedPosition;
+        while (first <= last && !isPositionVisible(first, endBound)) {
+            first++;
+        }
+        while (last >= first && !isPositionVisible(last, endBound)) {
+            last--;
+        }
+        if (first != firstAttachedPosition || last != lastAttachedPosition) {
+            for (int i = recyclerViewProxy.getChildCount() - 1; i >= 0; i--) {
+                View child = recyclerViewProxy.getChildAt(i);
+                int adapterPosition = recyclerViewProxy.getPosition(child);
+                int position = toLayoutPosition(adapterPosition);
+                if (position < first || position > last) {
+                    attachedViews.remove(adapterPosition);
+                    recyclerViewProxy.removeAndRecycleView(child, recycler);
+                }
+            }
+            firstAttachedPosition = first;
+            lastAttachedPosition = last;
+        }
 
-        viewCenterIterator.set(currentViewCenter.x, currentViewCenter.y);
-        for (int pos = currentPosition + positionStep; isInBounds(pos); pos += positionStep) {
-            if (pos == pendingPosition) {
-                noPredictiveLayoutRequired = true;
+        for (int pos = first - 1; canAttach(pos); pos--) {
+            computeViewCenter(pos, viewCenterIterator);
+            if (!isViewVisible(pos, viewCenterIterator, endBound)) {
+                break;
             }
-            orientationHelper.shiftViewCenter(direction, scrollToChangeCurrent, viewCenterIterator);
-            if (isViewVisible(viewCenterIterator, endBound)) {
-                layoutView(recycler, pos, viewCenterIterator);
-            } else if (noPredictiveLayoutRequired) {
+            layoutView(recycler, pos, viewCenterIterator);
+        }
+
+        for (int pos = last + 1; canAttach(pos); pos++) {
+            computeViewCenter(pos, viewCenterIterator);
+            if (!isViewVisible(pos, viewCenterIterator, endBound)) {
                 break;
             }
+            layoutView(recycler, pos, viewCenterIterator);
+        }
+    }
+
+    private void layoutViews(RecyclerView.Recycler recycler, int anchor, Direction direction, int endBound) {
+        final int positionStep = direction.applyTo(1);
+        for (int pos = anchor + positionStep; canAttach(pos); pos += positionStep) {
+            computeViewCenter(pos, viewCenterIterator);
+            if (!isViewVisible(pos, viewCenterIterator, endBound)) {
+                break;
+            }
+            layoutView(recycler, pos, viewCenterIterator);
         }
     }
 
     protected void layoutView(RecyclerView.Recycler recycler, int position, Point viewCenter) {
         if (position < 0) return;
-        View v = detachedCache.get(position);
+        long start = startPhase();
+        int adapterPosition = toAdapterPosition(position);
+        View v = detachedCache.get(adapterPosition);
+        if (metrics != null) {
+            metrics.onViewLaidOut(v != null);
+        }
         if (v == null) {
-            v = recyclerViewProxy.getMeasuredChildForAdapterPosition(position, recycler);
+            v = hasFixedItemSize()
+                    ? recyclerViewProxy.getMeasuredChildForAdapterPosition(
+                            adapterPosition, fixedItemWidth, fixedItemHeight, recycler)
+                    : recyclerViewProxy.getMeasuredChildForAdapterPosition(adapterPosition, recycler);
+            //The view could have been rebound, so its transform must be applied again
+            invalidateItemTransform(v);
+            int halfWidth = childHalfWidth, halfHeight = childHalfHeight;
+            if (isVariableItemSize()) {
+                int width = recyclerViewProxy.getMeasuredWidthWithMargin(v);
+                int height = recyclerViewProxy.getMeasuredHeightWithMargin(v);
+                //Items are measured lazily, so the center may shift once the real size is known
+                sizeIndex.setSize(position, orientationHelper.getDistanceToChangeCurrent(width, height));
+                computeViewCenter(position, viewCenter);
+                halfWidth = width / 2;
+                halfHeight = height / 2;
+            }
             recyclerViewProxy.layoutDecoratedWithMargins(v,
-                    viewCenter.x - childHalfWidth, viewCenter.y - childHalfHeight,
-                    viewCenter.x + childHalfWidth, viewCenter.y + childHalfHeight);
+                    viewCenter.x - halfWidth, viewCenter.y - halfHeight,
+                    viewCenter.x + halfWidth, viewCenter.y + halfHeight);
         } else {
             recyclerViewProxy.attachView(v);
-            detachedCache.remove(position);
+            detachedCache.remove(adapterPosition);
+        }
+        attachedViews.put(adapterPosition, v);
+        includeInAttachedRange(position);
+        endPhase(Phase.LAYOUT_VIEW, start);
+    }
+
+    private void clearAttachedRange() {
+        firstAttachedPosition = 0;
+        lastAttachedPosition = -1;
+        attachedViews.clear();
+    }
+
+    private void includeInAttachedRange(int position) {
+        if (lastAttachedPosition < firstAttachedPosition) {
+            firstAttachedPosition = lastAttachedPosition = position;
+        } else {
+            firstAttachedPosition = Math.min(firstAttachedPosition, position);
+            lastAttachedPosition = Math.max(lastAttachedPosition, position);
         }
     }
 
@@ -249,15 +507,24 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
     }
 
     protected void recycleDetachedViewsAndClearCache(RecyclerView.Recycler recycler) {
+        long start = startPhase();
         for (int i = 0; i < detachedCache.size(); i++) {
             View viewToRemove = detachedCache.valueAt(i);
             recyclerViewProxy.recycleView(viewToRemove, recycler);
         }
         detachedCache.clear();
+        endPhase(Phase.RECYCLE, start);
     }
 
     @Override
     public void onItemsAdded(@NonNull RecyclerView recyclerView, int positionStart, int itemCount) {
+        clearAttachedRange();
+        if (canUpdateItemSizes(recyclerViewProxy.getItemCount() - itemCount)) {
+            sizeIndex.insert(positionStart, itemCount);
+        } else {
+            resetItemSizes();
+        }
+        rebaseToAdapterPosition(recyclerViewProxy.getItemCount() - itemCount);
         int newPosition = currentPosition;
         if (currentPosition == NO_POSITION) {
             newPosition = 0;
@@ -269,6 +536,13 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
 
     @Override
     public void onItemsRemoved(@NonNull RecyclerView recyclerView, int positionStart, int itemCount) {
+        clearAttachedRange();
+        if (canUpdateItemSizes(recyclerViewProxy.getItemCount() + itemCount)) {
+            sizeIndex.remove(positionStart, itemCount);
+        } else {
+            resetItemSizes();
+        }
+        rebaseToAdapterPosition(recyclerViewProxy.getItemCount() + itemCount);
         int newPosition = currentPosition;
         if (recyclerViewProxy.getItemCount() == 0) {
             newPosition = NO_POSITION;
@@ -284,11 +558,45 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
 
     @Override
     public void onItemsChanged(@NonNull RecyclerView recyclerView) {
+        clearAttachedRange();
+        resetItemSizes();
+        rebaseToAdapterPosition(recyclerViewProxy.getItemCount());
+        //Current item might have been replaced, so listeners must be notified
+        isPositionShiftSilent = false;
         //notifyDataSetChanged() was called. We need to ensure that currentPosition is not out of bounds
         currentPosition = Math.min(Math.max(0, currentPosition), recyclerViewProxy.getItemCount() - 1);
         dataSetChangeShiftedPosition = true;
     }
 
+    @Override
+    public void onItemsMoved(@NonNull RecyclerView recyclerView, int from, int to, int itemCount) {
+        clearAttachedRange();
+        if (itemCount == 1 && canUpdateItemSizes(recyclerViewProxy.getItemCount())) {
+            sizeIndex.move(from, to);
+        } else {
+            resetItemSizes();
+        }
+        rebaseToAdapterPosition(recyclerViewProxy.getItemCount());
+    }
+
+    @Override
+    public void onItemsUpdated(@NonNull RecyclerView recyclerView, int positionStart, int itemCount) {
+        if (canUpdateItemSizes(recyclerViewProxy.getItemCount())) {
+            sizeIndex.invalidate(positionStart, itemCount);
+        }
+    }
+
+    //The adapter is about to shift positions without changing the current item, so listeners are not notified after the layout
+    void onPositionsShiftedSilently() {
+        isPositionShiftSilent = true;
+    }
+
+    //The adapter shows another item at the current position without a structural change, so listeners are notified after the layout
+    void onCurrentItemReplaced() {
+        dataSetChangeShiftedPosition = true;
+        recyclerViewProxy.requestLayout();
+    }
+
     private void onNewPosition(int position) {
         if (currentPosition != position) {
             currentPosition = position;
@@ -317,6 +625,8 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
             return 0;
         }
 
+        DSVTrace.beginSection(DSVTrace.SCROLL_BY);
+        long start = startPhase();
         int delta = direction.applyTo(Math.min(leftToScroll, Math.abs(amount)));
         scrolled += delta;
         if (pendingScroll != 0) {
@@ -324,6 +634,7 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
         }
 
         orientationHelper.offsetChildren(-delta, recyclerViewProxy);
+        laidOutScrolled += delta;
 
         if (orientationHelper.hasNewBecomeVisible(this)) {
             fill(recycler);
@@ -333,23 +644,112 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
 
         applyItemTransformToChildren();
 
+        endPhase(Phase.FRAME, start);
+        DSVTrace.endSection();
         return delta;
     }
 
+    @Override
+    public void collectAdjacentPrefetchPositions(
+            int dx, int dy,
+            RecyclerView.State state,
+            LayoutPrefetchRegistry layoutPrefetchRegistry) {
+        int delta = canScrollHorizontally() ? dx : dy;
+        if (delta == 0 || lastAttachedPosition < firstAttachedPosition || scrollToChangeCurrent == 0) {
+            return;
+        }
+        Direction direction = Direction.fromDelta(delta);
+        int edgePosition = direction == Direction.START ? firstAttachedPosition : lastAttachedPosition;
+        int layoutWindowHalfSize = extraLayoutSpace + orientationHelper.getViewEnd(
+                recyclerViewProxy.getWidth(),
+                recyclerViewProxy.getHeight()) / 2;
+        for (int i = 1; i <= prefetchItemCount; i++) {
+            int position = edgePosition + direction.applyTo(i);
+            if (!canAttach(position)) {
+                break;
+            }
+            int distanceFromCenter = Math.abs(getCenterDistance(currentPosition, position) - scrolled);
+            int itemHalfSize = (isVariableItemSize() ? sizeIndex.getSize(position) : scrollToChangeCurrent) / 2;
+            int distance = Math.max(0, distanceFromCenter - itemHalfSize - layoutWindowHalfSize);
+            layoutPrefetchRegistry.addPosition(toAdapterPosition(position), distance);
+        }
+    }
+
+    @Override
+    public void collectInitialPrefetchPositions(int adapterItemCount, LayoutPrefetchRegistry layoutPrefetchRegistry) {
+        if (adapterItemCount == 0 || initialPrefetchItemCount == 0) {
+            return;
+        }
+        //Prefetch the current item first and then its neighbours, closest first
+        int current = getCurrentPosition();
+        int anchor = current == NO_POSITION ? 0 : Math.min(current, adapterItemCount - 1);
+        layoutPrefetchRegistry.addPosition(anchor, 0);
+        int added = 1;
+        //In circular mode neighbours wrap around, so the last items are prefetched before the first one
+        boolean isCircular = isCircular();
+        int limit = Math.min(initialPrefetchItemCount, adapterItemCount);
+        for (int offset = 1; added < limit && offset < adapterItemCount; offset++) {
+            int after = anchor + offset, before = anchor - offset;
+            if (isCircular) {
+                after = floorMod(after, adapterItemCount);
+                before = floorMod(before, adapterItemCount);
+            }
+            if (after < adapterItemCount) {
+                layoutPrefetchRegistry.addPosition(after, 0);
+                added++;
+            }
+            if (added < limit && before >= 0 && before != after) {
+                layoutPrefetchRegistry.addPosition(before, 0);
+                added++;
+            }
+        }
+    }
+
     protected void applyItemTransformToChildren() {
         if (itemTransformer != null) {
-            int clampAfterDistance = scrollToChangeCurrent * transformClampItemCount;
+            DSVTrace.beginSection(DSVTrace.TRANSFORM);
+            long start = startPhase();
+            int clampBeforeDistance = getTransformClampDistance(Direction.START);
+            int clampAfterDistance = getTransformClampDistance(Direction.END);
             for (int i = 0; i < recyclerViewProxy.getChildCount(); i++) {
                 View child = recyclerViewProxy.getChildAt(i);
-                float position = getCenterRelativePositionOf(child, clampAfterDistance);
+                float position = getCenterRelativePositionOf(child, clampBeforeDistance, clampAfterDistance);
+                //Clamped children usually keep their progress, transforming them again only invalidates them
+                ViewGroup.LayoutParams lp = child.getLayoutParams();
+                if (lp instanceof LayoutParams) {
+                    LayoutParams params = (LayoutParams) lp;
+                    if (Math.abs(params.transformPosition - position) < TRANSFORM_POSITION_EPSILON) {
+                        continue;
+                    }
+                    params.transformPosition = position;
+                }
                 itemTransformer.transformItem(child, position);
             }
+            endPhase(Phase.TRANSFORM, start);
+            DSVTrace.endSection();
+        }
+    }
+
+    private void invalidateItemTransforms() {
+        for (int i = 0; i < recyclerViewProxy.getChildCount(); i++) {
+            invalidateItemTransform(recyclerViewProxy.getChildAt(i));
+        }
+    }
+
+    private void invalidateItemTransform(View child) {
+        ViewGroup.LayoutParams lp = child.getLayoutParams();
+        if (lp instanceof LayoutParams) {
+            ((LayoutParams) lp).transformPosition = Float.NaN;
         }
     }
 
     @Override
     public void scrollToPosition(int position) {
-        if (currentPosition == position) {
+        if (getCurrentPosition() == position) {
+            return;
+        }
+
+        if (shiftToAttachedPosition(position)) {
             return;
         }
 
@@ -357,20 +757,66 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
         recyclerViewProxy.requestLayout();
     }
 
+    /**
+     * Moves attached children so that an already attached position becomes current, without a layout pass.
+     * @return false if the position is not attached or children can't be trusted to be in place
+     */
+    private boolean shiftToAttachedPosition(int position) {
+        if (isFirstOrEmptyLayout || childDimensionsInvalid || pendingScroll != 0
+                || pendingPosition != NO_POSITION || pendingJumpPosition != NO_POSITION
+                || !areChildrenInPlace()) {
+            return false;
+        }
+        int target = isCircular() ? getClosestLayoutPosition(position) : position;
+        if (target < firstAttachedPosition || target > lastAttachedPosition) {
+            return false;
+        }
+        int delta = getCenterDistance(currentPosition, target) - scrolled;
+        currentPosition = target;
+        scrolled = 0;
+        orientationHelper.offsetChildren(-delta, recyclerViewProxy);
+        normalizeCurrentPosition();
+        laidOutPosition = currentPosition;
+        laidOutScrolled = scrolled;
+
+        if (orientationHelper.hasNewBecomeVisible(this)) {
+            //The layout only fills the edges, because children are already in place
+            recyclerViewProxy.requestLayout();
+        }
+
+        applyItemTransformToChildren();
+        return true;
+    }
+
     @Override
     public void smoothScrollToPosition(RecyclerView recyclerView, RecyclerView.State state, int position) {
-        if (currentPosition == position || pendingPosition != NO_POSITION) {
+        if (getCurrentPosition() == position || pendingPosition != NO_POSITION) {
             return;
         }
         checkTargetPosition(state, position);
+        pendingJumpPosition = NO_POSITION;
         if (currentPosition == NO_POSITION) {
             //Layout not happened yet
             currentPosition = position;
+            return;
+        }
+        int target = isCircular() ? getClosestLayoutPosition(position) : position;
+        if (Math.abs(target - currentPosition) > smoothScrollJumpThreshold) {
+            jumpCloseTo(target);
         } else {
-            startSmoothPendingScroll(position);
+            startSmoothPendingScroll(target);
         }
     }
 
+    private void jumpCloseTo(int position) {
+        int settleItems = Math.min(SMOOTH_SCROLL_JUMP_SETTLE_ITEMS, smoothScrollJumpThreshold);
+        Direction direction = Direction.fromDelta(position - currentPosition);
+        currentPosition = position - direction.applyTo(settleItems);
+        scrolled = pendingScroll = 0;
+        pendingJumpPosition = position;
+        recyclerViewProxy.requestLayout();
+    }
+
     @Override
     public boolean canScrollHorizontally() {
         return orientationHelper.canScrollHorizontally();
@@ -389,7 +835,9 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
 
         if (state == RecyclerView.SCROLL_STATE_IDLE) {
             //Scroll is not finished until current view is centered
+            DSVTrace.beginSection(DSVTrace.ON_SCROLL_END);
             boolean isScrollEnded = onScrollEnd();
+            DSVTrace.endSection();
             if (isScrollEnded) {
                 scrollStateListener.onScrollEnd();
             } else {
@@ -414,10 +862,11 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
         }
 
         Direction scrollDirection = Direction.fromDelta(scrolled);
-        if (Math.abs(scrolled) == scrollToChangeCurrent) {
+        if (Math.abs(scrolled) == getScrollToChangeCurrent(scrollDirection)) {
             currentPosition += scrollDirection.applyTo(1);
             scrolled = 0;
         }
+        normalizeCurrentPosition();
 
         if (isAnotherItemCloserThanCurrent()) {
             pendingScroll = getHowMuchIsLeftToScroll(scrolled);
@@ -437,11 +886,10 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
         //Here we need to:
         //1. Stop any pending scroll
         //2. Set currentPosition to position of the item that is closest to the center
-        boolean isScrollingThroughMultiplePositions = Math.abs(scrolled) > scrollToChangeCurrent;
-        if (isScrollingThroughMultiplePositions) {
-            int scrolledPositions = scrolled / scrollToChangeCurrent;
+        int scrolledPositions = getPassedPositions(scrolled);
+        if (scrolledPositions != 0) {
+            scrolled -= getCenterDistance(currentPosition, currentPosition + scrolledPositions);
             currentPosition += scrolledPositions;
-            scrolled -= scrolledPositions * scrollToChangeCurrent;
         }
         if (isAnotherItemCloserThanCurrent()) {
             Direction direction = Direction.fromDelta(scrolled);
@@ -449,7 +897,9 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
             scrolled = -getHowMuchIsLeftToScroll(scrolled);
         }
         pendingPosition = NO_POSITION;
+        pendingJumpPosition = NO_POSITION;
         pendingScroll = 0;
+        normalizeCurrentPosition();
     }
 
     public boolean isFlingDisallowed(int velocityX, int velocityY) {
@@ -466,6 +916,7 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
         boolean isInScrollDirection = velocity * scrolled >= 0;
         boolean canFling = isInScrollDirection && isInBounds(newPosition);
         if (canFling) {
+            settleVelocity = Math.abs(velocity);
             startSmoothPendingScroll(newPosition);
         } else {
             returnToCurrentPosition();
@@ -491,35 +942,37 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
         int allowedScroll;
         boolean isBoundReached;
         boolean isScrollDirectionAsBefore = direction.applyTo(scrolled) > 0;
-        if (direction == Direction.START && currentPosition == 0) {
+        int distanceToChangeCurrent = getScrollToChangeCurrent(direction);
+        boolean isCircular = isCircular();
+        if (!isCircular && direction == Direction.START && currentPosition == 0) {
             //We can scroll to the left when currentPosition == 0 only if we scrolled to the right before
             isBoundReached = scrolled == 0;
             allowedScroll = isBoundReached ? 0 : Math.abs(scrolled);
-        } else if (direction == Direction.END && currentPosition == recyclerViewProxy.getItemCount() - 1) {
+        } else if (!isCircular && direction == Direction.END && currentPosition == recyclerViewProxy.getItemCount() - 1) {
             //We can scroll to the right when currentPosition == last only if we scrolled to the left before
             isBoundReached = scrolled == 0;
             allowedScroll = isBoundReached ? 0 : Math.abs(scrolled);
         } else {
             isBoundReached = false;
             allowedScroll = isScrollDirectionAsBefore ?
-                    scrollToChangeCurrent - Math.abs(scrolled) :
-                    scrollToChangeCurrent + Math.abs(scrolled);
+                    distanceToChangeCurrent - Math.abs(scrolled) :
+                    distanceToChangeCurrent + Math.abs(scrolled);
         }
         scrollStateListener.onIsBoundReachedFlagChange(isBoundReached);
         return allowedScroll;
     }
 
     private void startSmoothPendingScroll() {
-        LinearSmoothScroller scroller = new DiscreteLinearSmoothScroller(context);
-        scroller.setTargetPosition(currentPosition);
-        recyclerViewProxy.startSmoothScroll(scroller);
+        //Target is an adapter position, RecyclerView checks it against the adapter item count
+        smoothScroller.restart(toAdapterPosition(currentPosition));
+        recyclerViewProxy.startSmoothScroll(smoothScroller);
     }
 
     private void startSmoothPendingScroll(int position) {
         if (currentPosition == position) return;
         pendingScroll = -scrolled;
         Direction direction = Direction.fromDelta(position - currentPosition);
-        int distanceToScroll = Math.abs(position - currentPosition) * scrollToChangeCurrent;
+        int distanceToScroll = Math.abs(getCenterDistance(currentPosition, position));
         pendingScroll += direction.applyTo(distanceToScroll);
         pendingPosition = position;
         startSmoothPendingScroll();
@@ -562,8 +1015,16 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
 
     private int computeScrollOffset(RecyclerView.State state) {
         int scrollbarSize = computeScrollExtent(state);
+        if (isVariableItemSize()) {
+            int range = computeScrollRange(state);
+            if (range == 0) {
+                return 0;
+            }
+            float progress = (getCenterDistance(0, currentPosition) + scrolled) / (float) range;
+            return (int) (progress * (range - scrollbarSize));
+        }
         int offset = (int) ((scrolled / (float) scrollToChangeCurrent) * scrollbarSize);
-        return (currentPosition * scrollbarSize) + offset;
+        return (toAdapterPosition(currentPosition) * scrollbarSize) + offset;
     }
 
     private int computeScrollExtent(RecyclerView.State state) {
@@ -577,6 +1038,8 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
     private int computeScrollRange(RecyclerView.State state) {
         if (state.getItemCount() == 0) {
             return 0;
+        } else if (isVariableItemSize()) {
+            return getCenterDistance(0, state.getItemCount() - 1);
         } else {
             return scrollToChangeCurrent * (state.getItemCount() - 1);
         }
@@ -584,23 +1047,27 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
 
     @Override
     public void onAdapterChanged(RecyclerView.Adapter oldAdapter, RecyclerView.Adapter newAdapter) {
-        pendingPosition = NO_POSITION;
+        pendingPosition = pendingJumpPosition = NO_POSITION;
         scrolled = pendingScroll = 0;
         if (newAdapter instanceof InitialPositionProvider) {
             currentPosition = ((InitialPositionProvider) newAdapter).getInitialPosition();
         } else {
             currentPosition = 0;
         }
-        recyclerViewProxy.removeAllViews();
+        //RecyclerView has already recycled views of the old adapter, unless it was swapped
+        clearAttachedRange();
+        childDimensionsInvalid = true;
     }
 
     @Override
     public Parcelable onSaveInstanceState() {
         Bundle bundle = new Bundle();
-        if (pendingPosition != NO_POSITION) {
+        if (pendingJumpPosition != NO_POSITION) {
+            currentPosition = pendingJumpPosition;
+        } else if (pendingPosition != NO_POSITION) {
             currentPosition = pendingPosition;
         }
-        bundle.putInt(EXTRA_POSITION, currentPosition);
+        bundle.putInt(EXTRA_POSITION, getCurrentPosition());
         return bundle;
     }
 
@@ -612,43 +1079,130 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
 
     @Override
     public RecyclerView.LayoutParams generateDefaultLayoutParams() {
-        return new RecyclerView.LayoutParams(
+        return new LayoutParams(
                 ViewGroup.LayoutParams.WRAP_CONTENT,
                 ViewGroup.LayoutParams.WRAP_CONTENT);
     }
 
+    @Override
+    public RecyclerView.LayoutParams generateLayoutParams(Context c, AttributeSet attrs) {
+        return new LayoutParams(c, attrs);
+    }
+
+    @Override
+    public RecyclerView.LayoutParams generateLayoutParams(ViewGroup.LayoutParams lp) {
+        if (lp instanceof RecyclerView.LayoutParams) {
+            return new LayoutParams((RecyclerView.LayoutParams) lp);
+        } else if (lp instanceof ViewGroup.MarginLayoutParams) {
+            return new LayoutParams((ViewGroup.MarginLayoutParams) lp);
+        } else {
+            return new LayoutParams(lp);
+        }
+    }
+
+    @Override
+    public boolean checkLayoutParams(RecyclerView.LayoutParams lp) {
+        return lp instanceof LayoutParams;
+    }
+
     public int getNextPosition() {
-        if (scrolled == 0) {
-            return currentPosition;
+        if (pendingJumpPosition != NO_POSITION) {
+            return toAdapterPosition(pendingJumpPosition);
+        } else if (scrolled == 0) {
+            return getCurrentPosition();
         } else if (pendingPosition != NO_POSITION) {
-            return pendingPosition;
+            return toAdapterPosition(pendingPosition);
         } else {
-            return currentPosition + Direction.fromDelta(scrolled).applyTo(1);
+            return toAdapterPosition(currentPosition + Direction.fromDelta(scrolled).applyTo(1));
         }
     }
 
     public void setItemTransformer(DiscreteScrollItemTransformer itemTransformer) {
         this.itemTransformer = itemTransformer;
+        invalidateItemTransforms();
     }
 
     public void setTimeForItemSettle(int timeForItemSettle) {
         this.timeForItemSettle = timeForItemSettle;
     }
 
+    public void setSmoothScrollJumpThreshold(int smoothScrollJumpThreshold) {
+        this.smoothScrollJumpThreshold = smoothScrollJumpThreshold;
+    }
+
+    public void setScrollPhysics(@NonNull DiscreteScrollPhysics scrollPhysics) {
+        this.scrollPhysics = scrollPhysics;
+    }
+
+    public void setMetrics(@Nullable DiscreteScrollMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void setInfiniteScrollEnabled(boolean infiniteScrollEnabled) {
+        if (this.infiniteScrollEnabled == infiniteScrollEnabled) {
+            return;
+        }
+        currentPosition = getCurrentPosition();
+        pendingPosition = pendingJumpPosition = NO_POSITION;
+        this.infiniteScrollEnabled = infiniteScrollEnabled;
+        clearAttachedRange();
+        recyclerViewProxy.requestLayout();
+    }
+
+    public void setVariableItemSize(boolean variableItemSize) {
+        this.variableItemSize = variableItemSize;
+        resetItemSizes();
+        clearAttachedRange();
+        recyclerViewProxy.requestLayout();
+    }
+
+    public void setFixedItemSize(int width, int height) {
+        if (fixedItemWidth == width && fixedItemHeight == height) {
+            return;
+        }
+        fixedItemWidth = width;
+        fixedItemHeight = height;
+        itemWidthFraction = itemHeightFraction = 0;
+        //Child dimensions are initialized again by the next layout
+        childDimensionsInvalid = true;
+        recyclerViewProxy.requestLayout();
+    }
+
+    public void setItemSizeFraction(float widthFraction, float heightFraction) {
+        itemWidthFraction = widthFraction;
+        itemHeightFraction = heightFraction;
+        if (hasItemSizeFraction()) {
+            resolveItemSizeFraction();
+            clearAttachedRange();
+            recyclerViewProxy.requestLayout();
+        } else {
+            setFixedItemSize(0, 0);
+        }
+    }
+
     public void setOffscreenItems(int offscreenItems) {
         this.offscreenItems = offscreenItems;
         extraLayoutSpace = scrollToChangeCurrent * offscreenItems;
         recyclerViewProxy.requestLayout();
     }
 
+    public void setItemPrefetchCount(int prefetchItemCount) {
+        this.prefetchItemCount = prefetchItemCount;
+    }
+
+    public void setInitialPrefetchItemCount(int initialPrefetchItemCount) {
+        this.initialPrefetchItemCount = initialPrefetchItemCount;
+    }
+
     public void setTransformClampItemCount(int transformClampItemCount) {
         this.transformClampItemCount = transformClampItemCount;
+        invalidateItemTransforms();
         applyItemTransformToChildren();
     }
 
     public void setOrientation(DSVOrientation orientation) {
         orientationHelper = orientation.createHelper();
-        recyclerViewProxy.removeAllViews();
+        childDimensionsInvalid = true;
         recyclerViewProxy.requestLayout();
     }
 
@@ -665,7 +1219,17 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
     }
 
     public int getCurrentPosition() {
-        return currentPosition;
+        return toAdapterPosition(currentPosition);
+    }
+
+    @Override
+    public View findViewByPosition(int position) {
+        View view = attachedViews.get(position);
+        //RecyclerView can also remove or rebind children on its own, for example during item animations
+        if (view != null && view.getParent() != null && recyclerViewProxy.getPosition(view) == position) {
+            return view;
+        }
+        return super.findViewByPosition(position);
     }
 
     @Override
@@ -677,17 +1241,23 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
         }
     }
 
-    private float getCenterRelativePositionOf(View v, int maxDistance) {
+    private float getCenterRelativePositionOf(View v, int maxDistanceBefore, int maxDistanceAfter) {
         float childCenterX = getDecoratedLeft(v) + v.getWidth() * 0.5f;
         float childCenterY = getDecoratedTop(v) + v.getHeight() * 0.5f;
         float distanceFromCenter = orientationHelper.getDistanceFromCenter(recyclerCenter,
                 childCenterX,
                 childCenterY);
+        int maxDistance = distanceFromCenter < 0 ? maxDistanceBefore : maxDistanceAfter;
         return Math.min(Math.max(-1f, distanceFromCenter / maxDistance), 1f);
     }
 
     private int checkNewOnFlingPositionIsInBounds(int position) {
         final int itemCount = recyclerViewProxy.getItemCount();
+        if (isCircular()) {
+            //Slide through multiple items is limited to one lap
+            int delta = Math.min(Math.max(-(itemCount - 1), position - currentPosition), itemCount - 1);
+            return currentPosition + delta;
+        }
         //The check is required in case slide through multiple items is turned on
         if (currentPosition != 0 && position < 0) {
             //If currentPosition == 0 && position < 0 we forbid scroll to the left,
@@ -700,43 +1270,262 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
     }
 
     private int getHowMuchIsLeftToScroll(int dx) {
-        return Direction.fromDelta(dx).applyTo(scrollToChangeCurrent - Math.abs(scrolled));
+        Direction direction = Direction.fromDelta(dx);
+        return direction.applyTo(getScrollToChangeCurrent(direction) - Math.abs(scrolled));
     }
 
     private boolean isAnotherItemCloserThanCurrent() {
-        return Math.abs(scrolled) >= scrollToChangeCurrent * SCROLL_TO_SNAP_TO_ANOTHER_ITEM;
+        int distanceToChangeCurrent = getScrollToChangeCurrent(Direction.fromDelta(scrolled));
+        return Math.abs(scrolled) >= distanceToChangeCurrent * SCROLL_TO_SNAP_TO_ANOTHER_ITEM;
     }
 
     public View getFirstChild() {
-        return recyclerViewProxy.getChildAt(0);
+        return getAttachedChild(firstAttachedPosition, 0);
     }
 
     public View getLastChild() {
-        return recyclerViewProxy.getChildAt(recyclerViewProxy.getChildCount() - 1);
+        return getAttachedChild(lastAttachedPosition, recyclerViewProxy.getChildCount() - 1);
+    }
+
+    //Children are added to the end whichever edge they fill, so their order doesn't follow positions
+    private View getAttachedChild(int position, int fallbackIndex) {
+        if (lastAttachedPosition >= firstAttachedPosition) {
+            View child = attachedViews.get(toAdapterPosition(position));
+            if (child != null) {
+                return child;
+            }
+        }
+        return recyclerViewProxy.getChildAt(fallbackIndex);
     }
 
     public int getExtraLayoutSpace() {
         return extraLayoutSpace;
     }
 
+    //In circular mode there is always an item to wrap in from the other end
+    boolean hasItemsBefore(View firstChild) {
+        return isCircular() || recyclerViewProxy.getPosition(firstChild) > 0;
+    }
+
+    boolean hasItemsAfter(View lastChild) {
+        return isCircular() || recyclerViewProxy.getPosition(lastChild) < recyclerViewProxy.getItemCount() - 1;
+    }
+
     private void notifyScroll() {
         float amountToScroll = pendingPosition != NO_POSITION ?
                 Math.abs(scrolled + pendingScroll) :
-                scrollToChangeCurrent;
+                getScrollToChangeCurrent(Direction.fromDelta(scrolled));
         float position = -Math.min(Math.max(-1f, scrolled / amountToScroll), 1f);
         scrollStateListener.onScroll(position);
     }
 
+    private long startPhase() {
+        return metrics != null ? metrics.startPhase() : 0;
+    }
+
+    private void endPhase(Phase phase, long start) {
+        if (metrics != null) {
+            metrics.endPhase(phase, start);
+        }
+    }
+
     private boolean isInBounds(int itemPosition) {
-        return itemPosition >= 0 && itemPosition < recyclerViewProxy.getItemCount();
+        return isCircular() || (itemPosition >= 0 && itemPosition < recyclerViewProxy.getItemCount());
+    }
+
+    private boolean canAttach(int position) {
+        if (!isCircular()) {
+            return isInBounds(position);
+        }
+        //Each item can be attached only once, so the circular layout window is limited to item count
+        return lastAttachedPosition < firstAttachedPosition
+                || Math.max(lastAttachedPosition, position) - Math.min(firstAttachedPosition, position)
+                < recyclerViewProxy.getItemCount();
+    }
+
+    private boolean isCircular() {
+        int itemCount = recyclerViewProxy.getItemCount();
+        return infiniteScrollEnabled && itemCount > 1 && itemCount <= MAX_CIRCULAR_ITEM_COUNT;
+    }
+
+    /**
+     * In circular mode positions used by the layout are virtual and the current one is kept in
+     * [itemCount, 2 * itemCount), so scroll in any direction never wraps and never reaches NO_POSITION.
+     */
+    private int toAdapterPosition(int position) {
+        if (position == NO_POSITION || !isCircular()) {
+            return position;
+        }
+        return floorMod(position, recyclerViewProxy.getItemCount());
+    }
+
+    //Virtual position of an attached view. Attached range is never longer than item count, so it is unique
+    private int toLayoutPosition(int adapterPosition) {
+        if (!isCircular() || lastAttachedPosition < firstAttachedPosition) {
+            return adapterPosition;
+        }
+        return firstAttachedPosition + floorMod(
+                adapterPosition - firstAttachedPosition,
+                recyclerViewProxy.getItemCount());
     }
 
-    private boolean isViewVisible(Point viewCenter, int endBound) {
+    private int getClosestLayoutPosition(int adapterPosition) {
+        int itemCount = recyclerViewProxy.getItemCount();
+        int delta = floorMod(adapterPosition - currentPosition, itemCount);
+        if (delta > itemCount / 2) {
+            delta -= itemCount;
+        }
+        return currentPosition + delta;
+    }
+
+    private void normalizeCurrentPosition() {
+        if (currentPosition == NO_POSITION || !isCircular()) {
+            return;
+        }
+        int shift = recyclerViewProxy.getItemCount() + toAdapterPosition(currentPosition) - currentPosition;
+        if (shift == 0) {
+            return;
+        }
+        currentPosition += shift;
+        if (pendingPosition != NO_POSITION) {
+            pendingPosition += shift;
+        }
+        if (pendingJumpPosition != NO_POSITION) {
+            pendingJumpPosition += shift;
+        }
+        firstAttachedPosition += shift;
+        lastAttachedPosition += shift;
+    }
+
+    //Adapter change notifications are in adapter positions, so virtual positions are dropped before handling them
+    private void rebaseToAdapterPosition(int itemCountBeforeChange) {
+        if (infiniteScrollEnabled && currentPosition != NO_POSITION && itemCountBeforeChange > 0) {
+            currentPosition = floorMod(currentPosition, itemCountBeforeChange);
+            pendingJumpPosition = NO_POSITION;
+        }
+    }
+
+    private static int floorMod(int value, int divisor) {
+        int mod = value % divisor;
+        return mod < 0 ? mod + divisor : mod;
+    }
+
+    private boolean isViewVisible(int position, Point viewCenter, int endBound) {
+        if (isVariableItemSize()) {
+            int halfSize = sizeIndex.getSize(position) / 2;
+            return orientationHelper.isViewVisible(
+                    viewCenter, halfSize, halfSize,
+                    endBound, extraLayoutSpace);
+        }
         return orientationHelper.isViewVisible(
                 viewCenter, childHalfWidth, childHalfHeight,
                 endBound, extraLayoutSpace);
     }
 
+    private boolean isPositionVisible(int position, int endBound) {
+        computeViewCenter(position, viewCenterIterator);
+        return isViewVisible(position, viewCenterIterator, endBound);
+    }
+
+    private void computeViewCenter(int position, Point outCenter) {
+        int distance = getCenterDistance(currentPosition, position);
+        outCenter.set(currentViewCenter.x, currentViewCenter.y);
+        orientationHelper.shiftViewCenter(Direction.fromDelta(distance), Math.abs(distance), outCenter);
+    }
+
+    /**
+     * @return signed distance between the centers of the items at the given positions
+     */
+    private int getCenterDistance(int fromPosition, int toPosition) {
+        if (isVariableItemSize()) {
+            return (int) (sizeIndex.getCenterOffset(toPosition) - sizeIndex.getCenterOffset(fromPosition));
+        }
+        return (toPosition - fromPosition) * scrollToChangeCurrent;
+    }
+
+    /**
+     * @return distance between the center of the current item and the center of its neighbour
+     */
+    private int getScrollToChangeCurrent(Direction direction) {
+        int neighbour = currentPosition + direction.applyTo(1);
+        if (!isVariableItemSize() || !isInBounds(currentPosition) || !isInBounds(neighbour)) {
+            return scrollToChangeCurrent;
+        }
+        return Math.abs(getCenterDistance(currentPosition, neighbour));
+    }
+
+    /**
+     * @return how many item centers are passed when scrolling by the given amount from the current item
+     */
+    private int getPassedPositions(int scroll) {
+        if (!isVariableItemSize() || !isInBounds(currentPosition)) {
+            return scrollToChangeCurrent != 0 ? scroll / scrollToChangeCurrent : 0;
+        }
+        long currentCenter = sizeIndex.getOffset(currentPosition) + sizeIndex.getSize(currentPosition) / 2;
+        long target = currentCenter + scroll;
+        int position = sizeIndex.getPositionAt(target);
+        long positionCenter = sizeIndex.getOffset(position) + sizeIndex.getSize(position) / 2;
+        if (scroll > 0 && positionCenter > target) {
+            position--;
+        } else if (scroll < 0 && positionCenter < target) {
+            position++;
+        }
+        return position - currentPosition;
+    }
+
+    private int getTransformClampDistance(Direction direction) {
+        int clampDistance = scrollToChangeCurrent * transformClampItemCount;
+        if (!isVariableItemSize() || !isInBounds(currentPosition)) {
+            return clampDistance;
+        }
+        int clampPosition = currentPosition + direction.applyTo(transformClampItemCount);
+        clampPosition = Math.min(Math.max(0, clampPosition), recyclerViewProxy.getItemCount() - 1);
+        int distance = Math.abs(getCenterDistance(currentPosition, clampPosition));
+        return distance != 0 ? distance : clampDistance;
+    }
+
+    private boolean hasItemSizeFraction() {
+        return itemWidthFraction > 0 && itemHeightFraction > 0;
+    }
+
+    private void resolveItemSizeFraction() {
+        if (viewWidth == 0 || viewHeight == 0) {
+            //Resolved by the first layout
+            return;
+        }
+        fixedItemWidth = (int) (viewWidth * itemWidthFraction);
+        fixedItemHeight = (int) (viewHeight * itemHeightFraction);
+        setChildDimensions(fixedItemWidth, fixedItemHeight);
+    }
+
+    private boolean hasFixedItemSize() {
+        return fixedItemWidth > 0 && fixedItemHeight > 0;
+    }
+
+    private boolean isVariableItemSize() {
+        return variableItemSize
+                && !hasFixedItemSize()
+                && !isCircular()
+                && sizeIndex.getItemCount() > 0
+                && sizeIndex.getItemCount() == recyclerViewProxy.getItemCount();
+    }
+
+    //Measured sizes of items which weren't affected by a data set change are kept
+    private boolean canUpdateItemSizes(int oldItemCount) {
+        return sizeIndex.getItemCount() > 0
+                && sizeIndex.getItemCount() == oldItemCount
+                && recyclerViewProxy.getItemCount() <= MAX_VARIABLE_SIZE_ITEM_COUNT;
+    }
+
+    private void resetItemSizes() {
+        int itemCount = recyclerViewProxy.getItemCount();
+        if (variableItemSize && scrollToChangeCurrent > 0 && itemCount <= MAX_VARIABLE_SIZE_ITEM_COUNT) {
+            sizeIndex.reset(itemCount, scrollToChangeCurrent);
+        } else {
+            sizeIndex.reset(0, 0);
+        }
+    }
+
     private void checkTargetPosition(RecyclerView.State state, int targetPosition) {
         if (targetPosition < 0 || targetPosition >= state.getItemCount()) {
             throw new IllegalArgumentException(String.format(Locale.US,
@@ -753,34 +1542,86 @@ public class DiscreteScrollLayoutManager extends RecyclerView.LayoutManager {
         this.orientationHelper = orientationHelper;
     }
 
-    private class DiscreteLinearSmoothScroller extends LinearSmoothScroller {
+    //Single instance is reused for every settle, the whole settle is issued as one Action
+    private class DiscreteSmoothScroller extends RecyclerView.SmoothScroller {
 
-        public DiscreteLinearSmoothScroller(Context context) {
-            super(context);
+        private boolean isSettleStarted;
+
+        /**
+         * startSmoothScroll doesn't stop a scroller which is passed to it again while it is running,
+         * and start() doesn't reset what the previous run left. So a running settle is stopped here
+         * and the new one starts from a clean state.
+         */
+        void restart(int targetPosition) {
+            if (isRunning()) {
+                //Stopping resets the velocity, which is already set for the new settle
+                float velocity = settleVelocity;
+                stop();
+                settleVelocity = velocity;
+            }
+            setTargetPosition(targetPosition);
         }
 
         @Override
-        public int calculateDxToMakeVisible(View view, int snapPreference) {
-            return orientationHelper.getPendingDx(-pendingScroll);
+        protected void onStart() {
+            isSettleStarted = false;
         }
 
         @Override
-        public int calculateDyToMakeVisible(View view, int snapPreference) {
-            return orientationHelper.getPendingDy(-pendingScroll);
+        protected void onStop() {
+            settleVelocity = 0;
         }
 
         @Override
-        protected int calculateTimeForScrolling(int dx) {
-            float dist = Math.min(Math.abs(dx), scrollToChangeCurrent);
-            return (int) (Math.max(0.01f, dist / scrollToChangeCurrent) * timeForItemSettle);
+        protected void onSeekTargetStep(int dx, int dy, @NonNull RecyclerView.State state, @NonNull Action action) {
+            //Distance to the target is known even if it is not attached yet
+            startSettle(action);
         }
 
-        @Nullable
         @Override
-        public PointF computeScrollVectorForPosition(int targetPosition) {
-            return new PointF(
+        protected void onTargetFound(@NonNull View targetView, @NonNull RecyclerView.State state, @NonNull Action action) {
+            startSettle(action);
+        }
+
+        private void startSettle(Action action) {
+            if (isSettleStarted) {
+                return;
+            }
+            isSettleStarted = true;
+            int itemSize = getScrollToChangeCurrent(Direction.fromDelta(pendingScroll));
+            int duration = scrollPhysics.prepareSettle(
+                    Math.abs(pendingScroll), settleVelocity,
+                    itemSize, timeForItemSettle);
+            action.update(
                     orientationHelper.getPendingDx(pendingScroll),
-                    orientationHelper.getPendingDy(pendingScroll));
+                    orientationHelper.getPendingDy(pendingScroll),
+                    Math.max(1, duration), scrollPhysics);
+        }
+    }
+
+    //Remembers the last transform progress applied to the child
+    public static class LayoutParams extends RecyclerView.LayoutParams {
+
+        float transformPosition = Float.NaN;
+
+        public LayoutParams(Context c, AttributeSet attrs) {
+            super(c, attrs);
+        }
+
+        public LayoutParams(int width, int height) {
+            super(width, height);
+        }
+
+        public LayoutParams(ViewGroup.MarginLayoutParams source) {
+            super(source);
+        }
+
+        public LayoutParams(ViewGroup.LayoutParams source) {
+            super(source);
+        }
+
+        public LayoutParams(RecyclerView.LayoutParams source) {
+            super(source);
         }
     }
 
@@ -0,0 +1,126 @@
+package com.yarolegovich.discretescrollview;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Opt-in counters of the work done by the layout of DiscreteScrollView. Phases are recorded on the UI thread
+ * without locks and snapshots can be taken from any thread, for example by a periodic telemetry job.
+ */
+public class DiscreteScrollMetrics {
+
+    public enum Phase {
+        //One scroll frame, includes all other phases which happened during it
+        FRAME,
+        FILL,
+        //Single item being laid out during fill
+        LAYOUT_VIEW,
+        TRANSFORM,
+        //Listener callbacks of DiscreteScrollView, coalesced onScroll is recorded when it is delivered
+        DISPATCH,
+        RECYCLE
+    }
+
+    private static final int PHASE_COUNT = Phase.values().length;
+    private static final int SLOT_COUNT = 0;
+    private static final int SLOT_TOTAL_NANOS = 1;
+    private static final int SLOT_MAX_NANOS = 2;
+    private static final int SLOTS_PER_PHASE = 3;
+    private static final int SLOT_VIEWS_FROM_RECYCLER = PHASE_COUNT * SLOTS_PER_PHASE;
+    private static final int SLOT_DETACHED_CACHE_HITS = SLOT_VIEWS_FROM_RECYCLER + 1;
+    private static final int SLOTS = SLOT_DETACHED_CACHE_HITS + 1;
+
+    private final AtomicLongArray values;
+
+    public DiscreteScrollMetrics() {
+        values = new AtomicLongArray(SLOTS);
+    }
+
+    long startPhase() {
+        return System.nanoTime();
+    }
+
+    void endPhase(Phase phase, long startNanos) {
+        long duration = System.nanoTime() - startNanos;
+        int base = phase.ordinal() * SLOTS_PER_PHASE;
+        values.incrementAndGet(base + SLOT_COUNT);
+        values.addAndGet(base + SLOT_TOTAL_NANOS, duration);
+        long max;
+        do {
+            max = values.get(base + SLOT_MAX_NANOS);
+        } while (duration > max && !values.compareAndSet(base + SLOT_MAX_NANOS, max, duration));
+    }
+
+    void onViewLaidOut(boolean fromDetachedCache) {
+        values.incrementAndGet(fromDetachedCache ? SLOT_DETACHED_CACHE_HITS : SLOT_VIEWS_FROM_RECYCLER);
+    }
+
+    @NonNull
+    public Snapshot snapshot() {
+        long[] copy = new long[SLOTS];
+        for (int i = 0; i < SLOTS; i++) {
+            copy[i] = values.get(i);
+        }
+        return new Snapshot(copy);
+    }
+
+    /**
+     * Each counter is read and reset atomically, so nothing is lost between two snapshots. A phase which
+     * is being recorded concurrently may be split between them.
+     */
+    @NonNull
+    public Snapshot snapshotAndReset() {
+        long[] copy = new long[SLOTS];
+        for (int i = 0; i < SLOTS; i++) {
+            copy[i] = values.getAndSet(i, 0);
+        }
+        return new Snapshot(copy);
+    }
+
+    public void reset() {
+        for (int i = 0; i < SLOTS; i++) {
+            values.set(i, 0);
+        }
+    }
+
+    public static class Snapshot {
+
+        private final long[] values;
+
+        private Snapshot(long[] values) {
+            this.values = values;
+        }
+
+        public long getCount(@NonNull Phase phase) {
+            return values[phase.ordinal() * SLOTS_PER_PHASE + SLOT_COUNT];
+        }
+
+        public long getTotalNanos(@NonNull Phase phase) {
+            return values[phase.ordinal() * SLOTS_PER_PHASE + SLOT_TOTAL_NANOS];
+        }
+
+        public long getMaxNanos(@NonNull Phase phase) {
+            return values[phase.ordinal() * SLOTS_PER_PHASE + SLOT_MAX_NANOS];
+        }
+
+        public long getAverageNanos(@NonNull Phase phase) {
+            long count = getCount(phase);
+            return count != 0 ? getTotalNanos(phase) / count : 0;
+        }
+
+        /**
+         * @return how many views were obtained from RecyclerView, which means they were created, bound or taken from scrap
+         */
+        public long getViewsFromRecycler() {
+            return values[SLOT_VIEWS_FROM_RECYCLER];
+        }
+
+        /**
+         * @return how many views were reattached as they were, without a trip to RecyclerView
+         */
+        public long getDetachedCacheHits() {
+            return values[SLOT_DETACHED_CACHE_HITS];
+        }
+    }
+}
@@ -5,17 +5,18 @@ import android.content.res.TypedArray;
 import android.util.AttributeSet;
 import android.view.View;
 
+import androidx.annotation.FloatRange;
 import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.Px;
+import androidx.core.view.ViewCompat;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.yarolegovich.discretescrollview.physics.DiscreteScrollPhysics;
 import com.yarolegovich.discretescrollview.transform.DiscreteScrollItemTransformer;
 import com.yarolegovich.discretescrollview.util.ScrollListenerAdapter;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Created by yarolegovich on 18.02.2017.
  */
@@ -28,8 +29,8 @@ public class DiscreteScrollView extends RecyclerView {
 
     private DiscreteScrollLayoutManager layoutManager;
 
-    private List<ScrollStateChangeListener> scrollStateChangeListeners;
-    private List<OnItemChangedListener> onItemChangedListeners;
+    private ListenerRegistry<ScrollStateChangeListener<?>> scrollStateChangeListeners;
+    private ListenerRegistry<OnItemChangedListener<?>> onItemChangedListeners;
     private Runnable notifyItemChangedRunnable = new Runnable() {
         @Override
         public void run() {
@@ -37,8 +38,28 @@ public class DiscreteScrollView extends RecyclerView {
         }
     };
 
+    private Runnable dispatchScrollRunnable = new Runnable() {
+        @Override
+        public void run() {
+            isScrollDispatchPending = false;
+            dispatchScroll(pendingScrollPosition, pendingCurrentIndex, pendingNewIndex);
+        }
+    };
+
     private boolean isOverScrollEnabled;
 
+    private boolean isScrollDispatchCoalesced;
+    private boolean isScrollDispatchPending;
+    private float pendingScrollPosition;
+    //Indices are kept with the progress, because the current item may already be changed when it is flushed
+    private int pendingCurrentIndex, pendingNewIndex;
+
+    //Holders of the current and the next item are looked up on every scroll frame, so they are kept between frames
+    private ViewHolder scrollCurrentHolder, scrollNewHolder;
+
+    @Nullable
+    private DiscreteScrollMetrics metrics;
+
     public DiscreteScrollView(Context context) {
         super(context);
         init(null);
@@ -55,8 +76,8 @@ public class DiscreteScrollView extends RecyclerView {
     }
 
     private void init(AttributeSet attrs) {
-        scrollStateChangeListeners = new ArrayList<>();
-        onItemChangedListeners = new ArrayList<>();
+        scrollStateChangeListeners = new ListenerRegistry<>();
+        onItemChangedListeners = new ListenerRegistry<>();
 
         int orientation = DEFAULT_ORIENTATION;
         if (attrs != null) {
@@ -119,6 +140,10 @@ public class DiscreteScrollView extends RecyclerView {
         return layoutManager.getCurrentPosition();
     }
 
+    /**
+     * The transformer is called for items whose position changed since the last call and for every item
+     * after a layout or a rebind. Items which stay clamped at -1 or 1 during scroll are not transformed again.
+     */
     public void setItemTransformer(DiscreteScrollItemTransformer transformer) {
         layoutManager.setItemTransformer(transformer);
     }
@@ -127,6 +152,51 @@ public class DiscreteScrollView extends RecyclerView {
         layoutManager.setTimeForItemSettle(millis);
     }
 
+    /**
+     * Smooth scroll to an item which is further than this amount of items from the current one
+     * jumps close to the target and animates only the last few items.
+     */
+    public void setSmoothScrollJumpThreshold(@IntRange(from = 1) int items) {
+        layoutManager.setSmoothScrollJumpThreshold(items);
+    }
+
+    /**
+     * Physics which define duration and interpolation of settle animations.
+     * DecayScrollPhysics is used by default.
+     */
+    public void setScrollPhysics(@NonNull DiscreteScrollPhysics physics) {
+        layoutManager.setScrollPhysics(physics);
+    }
+
+    /**
+     * Starts recording durations of layout phases and view reuse counts into the given metrics,
+     * null stops the recording. Take snapshots of the metrics to read the values.
+     */
+    public void setScrollMetrics(@Nullable DiscreteScrollMetrics metrics) {
+        this.metrics = metrics;
+        layoutManager.setMetrics(metrics);
+    }
+
+    /**
+     * Wraps layout, scroll and listener dispatch of all DiscreteScrollViews into named system trace sections.
+     * Call it on the main thread, tracing is disabled by default.
+     */
+    public static void setTracingEnabled(boolean enabled) {
+        DSVTrace.setEnabled(enabled);
+    }
+
+    /**
+     * Delivers onScroll of ScrollStateChangeListeners at most once per frame, with the latest scroll progress.
+     * Scroll start, scroll end and current item changes are still delivered immediately and after
+     * the pending onScroll.
+     */
+    public void setScrollDispatchCoalesced(boolean coalesced) {
+        if (!coalesced) {
+            flushPendingScroll();
+        }
+        isScrollDispatchCoalesced = coalesced;
+    }
+
     public void setSlideOnFling(boolean result){
         layoutManager.setShouldSlideOnFling(result);
     }
@@ -139,10 +209,63 @@ public class DiscreteScrollView extends RecyclerView {
         layoutManager.setOrientation(orientation);
     }
 
+    /**
+     * Lets the user scroll past the last item to the first one and vice versa. The adapter keeps
+     * reporting its real item count, so there is no need to wrap it with InfiniteScrollAdapter.
+     * Has no effect if the adapter has less than two items and is not supported together with variable item size.
+     */
+    public void setInfiniteScrollEnabled(boolean infiniteScrollEnabled) {
+        layoutManager.setInfiniteScrollEnabled(infiniteScrollEnabled);
+    }
+
+    /**
+     * Lets items have different sizes along the scroll axis. Each item is measured when it enters
+     * the layout window for the first time, the size of the first item is used as an estimate before that.
+     */
+    public void setVariableItemSize(boolean variableItemSize) {
+        layoutManager.setVariableItemSize(variableItemSize);
+    }
+
+    /**
+     * Declares that every item has the given size, including margins and item decorations.
+     * Items are then measured with exact specs and no item is bound just to learn the size.
+     * Pass 0 to measure items again.
+     */
+    public void setFixedItemSize(@Px int width, @Px int height) {
+        layoutManager.setFixedItemSize(width, height);
+    }
+
+    /**
+     * Sizes every item as a fraction of the size of DiscreteScrollView, including margins and item decorations.
+     * When DiscreteScrollView is resized, attached items are measured again instead of being re-created.
+     * Pass 0 to measure items again.
+     */
+    public void setItemSizeFraction(
+            @FloatRange(from = 0, to = 1) float widthFraction,
+            @FloatRange(from = 0, to = 1) float heightFraction) {
+        layoutManager.setItemSizeFraction(widthFraction, heightFraction);
+    }
+
     public void setOffscreenItems(int items) {
         layoutManager.setOffscreenItems(items);
     }
 
+    /**
+     * @param count how many items ahead of the layout window in the scroll direction
+     *              are created and bound by RecyclerView during idle frame time.
+     */
+    public void setItemPrefetchCount(@IntRange(from = 0) int count) {
+        layoutManager.setItemPrefetchCount(count);
+    }
+
+    /**
+     * @param count how many items around the current one are prefetched when DiscreteScrollView
+     *              is nested in another RecyclerView and is about to become visible.
+     */
+    public void setInitialPrefetchItemCount(@IntRange(from = 0) int count) {
+        layoutManager.setInitialPrefetchItemCount(count);
+    }
+
     public void setScrollConfig(@NonNull DSVScrollConfig config) {
         layoutManager.setScrollConfig(config);
     }
@@ -176,39 +299,77 @@ public class DiscreteScrollView extends RecyclerView {
     }
 
     public void removeScrollListener(@NonNull ScrollListener<?> scrollListener) {
-        removeScrollStateChangeListener(new ScrollListenerAdapter<>(scrollListener));
+        Object[] listeners = scrollStateChangeListeners.getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] instanceof ScrollListenerAdapter
+                    && ((ScrollListenerAdapter<?>) listeners[i]).getAdaptee() == scrollListener) {
+                scrollStateChangeListeners.remove(listeners[i]);
+                return;
+            }
+        }
     }
 
     public void removeItemChangedListener(@NonNull OnItemChangedListener<?> onItemChangedListener) {
         onItemChangedListeners.remove(onItemChangedListener);
     }
 
+    //Indexed loops over snapshots of the registries, so dispatch allocates nothing and listeners may unregister themselves
     private void notifyScrollStart(ViewHolder holder, int current) {
-        for (ScrollStateChangeListener listener : scrollStateChangeListeners) {
-            listener.onScrollStart(holder, current);
+        DSVTrace.beginSection(DSVTrace.DISPATCH_SCROLL_START);
+        long start = startDispatch();
+        Object[] listeners = scrollStateChangeListeners.getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            ((ScrollStateChangeListener) listeners[i]).onScrollStart(holder, current);
         }
+        endDispatch(start);
+        DSVTrace.endSection();
     }
 
     private void notifyScrollEnd(ViewHolder holder, int current) {
-        for (ScrollStateChangeListener listener : scrollStateChangeListeners) {
-            listener.onScrollEnd(holder, current);
+        DSVTrace.beginSection(DSVTrace.DISPATCH_SCROLL_END);
+        long start = startDispatch();
+        Object[] listeners = scrollStateChangeListeners.getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            ((ScrollStateChangeListener) listeners[i]).onScrollEnd(holder, current);
         }
+        endDispatch(start);
+        DSVTrace.endSection();
     }
 
     private void notifyScroll(float position,
                               int currentIndex, int newIndex,
                               ViewHolder currentHolder, ViewHolder newHolder) {
-        for (ScrollStateChangeListener listener : scrollStateChangeListeners) {
-            listener.onScroll(position, currentIndex, newIndex,
+        DSVTrace.beginSection(DSVTrace.DISPATCH_SCROLL);
+        long start = startDispatch();
+        Object[] listeners = scrollStateChangeListeners.getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            ((ScrollStateChangeListener) listeners[i]).onScroll(position, currentIndex, newIndex,
                 currentHolder,
                 newHolder);
         }
+        endDispatch(start);
+        DSVTrace.endSection();
+    }
+
+    private long startDispatch() {
+        return metrics != null ? metrics.startPhase() : 0;
+    }
+
+    private void endDispatch(long start) {
+        if (metrics != null) {
+            metrics.endPhase(DiscreteScrollMetrics.Phase.DISPATCH, start);
+        }
     }
 
     private void notifyCurrentItemChanged(ViewHolder holder, int current) {
-        for (OnItemChangedListener listener : onItemChangedListeners) {
-            listener.onCurrentItemChanged(holder, current);
+        DSVTrace.beginSection(DSVTrace.DISPATCH_ITEM_CHANGED);
+        long start = startDispatch();
+        Object[] listeners = onItemChangedListeners.getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            ((OnItemChangedListener) listeners[i]).onCurrentItemChanged(holder, current);
         }
+        endDispatch(start);
+        DSVTrace.endSection();
     }
 
     private void notifyCurrentItemChanged() {
@@ -216,6 +377,7 @@ public class DiscreteScrollView extends RecyclerView {
         if (onItemChangedListeners.isEmpty()) {
             return;
         }
+        flushPendingScroll();
         int current = layoutManager.getCurrentPosition();
         ViewHolder currentHolder = getViewHolder(current);
         if (currentHolder == null) {
@@ -225,6 +387,45 @@ public class DiscreteScrollView extends RecyclerView {
         }
     }
 
+    private void dispatchScroll(float currentViewPosition, int currentIndex, int newIndex) {
+        if (currentIndex != newIndex) {
+            ViewHolder currentHolder = getScrollViewHolder(currentIndex);
+            ViewHolder newHolder = getScrollViewHolder(newIndex);
+            scrollCurrentHolder = currentHolder;
+            scrollNewHolder = newHolder;
+            notifyScroll(currentViewPosition,
+                currentIndex, newIndex,
+                currentHolder,
+                newHolder);
+        }
+    }
+
+    //Coalesced onScroll must be delivered before any other event, so that listeners see them in order
+    private void flushPendingScroll() {
+        if (isScrollDispatchPending) {
+            removeCallbacks(dispatchScrollRunnable);
+            isScrollDispatchPending = false;
+            dispatchScroll(pendingScrollPosition, pendingCurrentIndex, pendingNewIndex);
+        }
+    }
+
+    @Nullable
+    private ViewHolder getScrollViewHolder(int position) {
+        //Current and next items swap when the current one changes, so both cached holders are checked
+        if (isAttachedAt(scrollCurrentHolder, position)) {
+            return scrollCurrentHolder;
+        } else if (isAttachedAt(scrollNewHolder, position)) {
+            return scrollNewHolder;
+        }
+        return getViewHolder(position);
+    }
+
+    private boolean isAttachedAt(@Nullable ViewHolder holder, int position) {
+        return holder != null
+                && holder.getLayoutPosition() == position
+                && holder.itemView.getParent() == this;
+    }
+
     private class ScrollStateListener implements DiscreteScrollLayoutManager.ScrollStateListener {
 
         @Override
@@ -237,6 +438,7 @@ public class DiscreteScrollView extends RecyclerView {
         @Override
         public void onScrollStart() {
             removeCallbacks(notifyItemChangedRunnable);
+            flushPendingScroll();
             if (scrollStateChangeListeners.isEmpty()) {
                 return;
             }
@@ -249,9 +451,11 @@ public class DiscreteScrollView extends RecyclerView {
 
         @Override
         public void onScrollEnd() {
+            flushPendingScroll();
             if (onItemChangedListeners.isEmpty() && scrollStateChangeListeners.isEmpty()) {
                 return;
             }
+            scrollCurrentHolder = scrollNewHolder = null;
             int current = layoutManager.getCurrentPosition();
             ViewHolder holder = getViewHolder(current);
             if (holder != null) {
@@ -267,11 +471,16 @@ public class DiscreteScrollView extends RecyclerView {
             }
             int currentIndex = getCurrentItem();
             int newIndex = layoutManager.getNextPosition();
-            if (currentIndex != newIndex) {
-                notifyScroll(currentViewPosition,
-                    currentIndex, newIndex,
-                    getViewHolder(currentIndex),
-                    getViewHolder(newIndex));
+            if (isScrollDispatchCoalesced) {
+                pendingScrollPosition = currentViewPosition;
+                pendingCurrentIndex = currentIndex;
+                pendingNewIndex = newIndex;
+                if (!isScrollDispatchPending) {
+                    isScrollDispatchPending = true;
+                    ViewCompat.postOnAnimation(DiscreteScrollView.this, dispatchScrollRunnable);
+                }
+            } else {
+                dispatchScroll(currentViewPosition, currentIndex, newIndex);
             }
         }
 
@@ -3,8 +3,10 @@ package com.yarolegovich.discretescrollview;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.collection.LongSparseArray;
 import androidx.recyclerview.widget.RecyclerView;
 
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -16,6 +18,11 @@ public class InfiniteScrollAdapter<T extends RecyclerView.ViewHolder> extends Re
 
     private static final int CENTER = Integer.MAX_VALUE / 2;
     private static final int RESET_BOUND = 100;
+    //Current position further than this from CENTER is moved back to it when scroll is idle
+    private static final int RECENTER_DISTANCE = Integer.MAX_VALUE / 4;
+    //Covers views kept in RecyclerView's view cache and prefetched ones. Views which are further away
+    //are in the recycled pool and are rebound on reuse anyway
+    private static final int NOTIFY_WINDOW_MARGIN = 10;
 
     public static <T extends RecyclerView.ViewHolder> InfiniteScrollAdapter<T> wrap(
             @NonNull RecyclerView.Adapter<T> adapter) {
@@ -23,18 +30,44 @@ public class InfiniteScrollAdapter<T extends RecyclerView.ViewHolder> extends Re
     }
 
     private RecyclerView.Adapter<T> wrapped;
+    private final RecyclerView.AdapterDataObserver dataSetChangeDelegate = new DataSetChangeDelegate();
+    private RecyclerView recyclerView;
     private DiscreteScrollLayoutManager layoutManager;
+    //Virtual position of the first real item, shifted on structural changes to keep the current item in place
+    private int origin = CENTER;
+    //Small keys for ids of the wrapped adapter, used only while copies of an item can be bound at the same time
+    private final LongSparseArray<Integer> copyKeys = new LongSparseArray<>();
 
     public InfiniteScrollAdapter(@NonNull RecyclerView.Adapter<T> wrapped) {
         this.wrapped = wrapped;
-        this.wrapped.registerAdapterDataObserver(new DataSetChangeDelegate());
+        //Must be done before any observer is registered, RecyclerView.Adapter throws otherwise
+        super.setHasStableIds(wrapped.hasStableIds());
+        this.wrapped.registerAdapterDataObserver(dataSetChangeDelegate);
     }
 
+    private final RecyclerView.OnScrollListener recenterOnIdleListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+            if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                recyclerView.post(recenterRunnable);
+            }
+        }
+    };
+
+    private final Runnable recenterRunnable = new Runnable() {
+        @Override
+        public void run() {
+            recenterIfRequired();
+        }
+    };
+
     @Override
     public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
         wrapped.onAttachedToRecyclerView(recyclerView);
         if (recyclerView instanceof DiscreteScrollView) {
+            this.recyclerView = recyclerView;
             layoutManager = (DiscreteScrollLayoutManager) recyclerView.getLayoutManager();
+            recyclerView.addOnScrollListener(recenterOnIdleListener);
         } else {
             String msg = recyclerView.getContext().getString(R.string.dsv_ex_msg_adapter_wrong_recycler);
             throw new RuntimeException(msg);
@@ -44,6 +77,9 @@ public class InfiniteScrollAdapter<T extends RecyclerView.ViewHolder> extends Re
     @Override
     public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
         wrapped.onDetachedFromRecyclerView(recyclerView);
+        recyclerView.removeOnScrollListener(recenterOnIdleListener);
+        recyclerView.removeCallbacks(recenterRunnable);
+        this.recyclerView = null;
         layoutManager = null;
     }
 
@@ -55,18 +91,99 @@ public class InfiniteScrollAdapter<T extends RecyclerView.ViewHolder> extends Re
     @Override
     public void onBindViewHolder(@NonNull T holder, int position) {
         if (isResetRequired(position)) {
-            int resetPosition = CENTER + mapPositionToReal(layoutManager.getCurrentPosition());
-            setPosition(resetPosition);
-            return;
+            recyclerView.post(recenterRunnable);
         }
         wrapped.onBindViewHolder(holder, mapPositionToReal(position));
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull T holder, int position, @NonNull List<Object> payloads) {
+        if (isResetRequired(position)) {
+            recyclerView.post(recenterRunnable);
+        }
+        wrapped.onBindViewHolder(holder, mapPositionToReal(position), payloads);
+    }
+
     @Override
     public int getItemViewType(int position) {
         return wrapped.getItemViewType(mapPositionToReal(position));
     }
 
+    /**
+     * Ids of the wrapped adapter are passed as they are while the real item count is larger than the window
+     * of bound views, so a holder keeps its id whichever virtual copy it shows. Only when two copies of an item
+     * can be bound at the same time, the id becomes a small key of the real item combined with the index of
+     * the copy. Such ids change when an insert or remove shifts the copies, which rebinds a few views of a short list.
+     * Stable ids are enabled if the wrapped adapter had them when it was wrapped or when they are set on this adapter.
+     */
+    @Override
+    public long getItemId(int position) {
+        int real = mapPositionToReal(position);
+        long id = wrapped.hasStableIds() ? wrapped.getItemId(real) : real;
+        if (!canCopiesBeBoundTogether()) {
+            return id;
+        }
+        //Copies are counted from origin, so recentering doesn't change ids of attached items
+        long copy = floorDiv((long) position - origin, wrapped.getItemCount());
+        return ((long) getCopyKey(id) << 32) | (copy & 0xFFFFFFFFL);
+    }
+
+    private boolean canCopiesBeBoundTogether() {
+        if (layoutManager == null || !isInfinite()) {
+            return false;
+        }
+        int current = layoutManager.getCurrentPosition();
+        return wrapped.getItemCount() <= getNotifyWindowEnd(current) - getNotifyWindowStart(current);
+    }
+
+    private int getCopyKey(long id) {
+        int index = copyKeys.indexOfKey(id);
+        if (index >= 0) {
+            return copyKeys.valueAt(index);
+        }
+        if (copyKeys.size() >= wrapped.getItemCount() * 2) {
+            //Most of the keys belong to removed items
+            copyKeys.clear();
+        }
+        int key = copyKeys.size();
+        copyKeys.put(id, key);
+        return key;
+    }
+
+    @Override
+    public void setHasStableIds(boolean hasStableIds) {
+        super.setHasStableIds(hasStableIds);
+        if (wrapped.hasStableIds() != hasStableIds) {
+            //The wrapped adapter refuses the change while it is observed
+            wrapped.unregisterAdapterDataObserver(dataSetChangeDelegate);
+            try {
+                wrapped.setHasStableIds(hasStableIds);
+            } finally {
+                wrapped.registerAdapterDataObserver(dataSetChangeDelegate);
+            }
+        }
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull T holder) {
+        wrapped.onViewRecycled(holder);
+    }
+
+    @Override
+    public boolean onFailedToRecycleView(@NonNull T holder) {
+        return wrapped.onFailedToRecycleView(holder);
+    }
+
+    @Override
+    public void onViewAttachedToWindow(@NonNull T holder) {
+        wrapped.onViewAttachedToWindow(holder);
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(@NonNull T holder) {
+        wrapped.onViewDetachedFromWindow(holder);
+    }
+
     @Override
     public int getItemCount() {
         return isInfinite() ? Integer.MAX_VALUE : wrapped.getItemCount();
@@ -107,12 +224,17 @@ public class InfiniteScrollAdapter<T extends RecyclerView.ViewHolder> extends Re
     }
 
     private int mapPositionToReal(int position) {
-        if (position < CENTER) {
-            int rem = (CENTER - position) % wrapped.getItemCount();
-            return rem == 0 ? 0 : wrapped.getItemCount() - rem;
-        } else {
-            return (position - CENTER) % wrapped.getItemCount();
-        }
+        return floorMod((long) position - origin, wrapped.getItemCount());
+    }
+
+    private static int floorMod(long value, int divisor) {
+        int mod = (int) (value % divisor);
+        return mod < 0 ? mod + divisor : mod;
+    }
+
+    private static long floorDiv(long value, int divisor) {
+        long div = value / divisor;
+        return value % divisor < 0 ? div - 1 : div;
     }
 
     private boolean isResetRequired(int requestedPosition) {
@@ -138,42 +260,275 @@ public class InfiniteScrollAdapter<T extends RecyclerView.ViewHolder> extends Re
         return isInfinite() ? CENTER : 0;
     }
 
+    /**
+     * Moves the current position back to CENTER by removing items from one end of the virtual range and
+     * adding the same amount to the other one. Attached holders only change their positions, so nothing
+     * is rebound and the layout doesn't move. Can't be done during a scroll or a layout pass.
+     */
+    private void recenterIfRequired() {
+        if (layoutManager == null || !isInfinite()) {
+            return;
+        }
+        if (recyclerView.getScrollState() != RecyclerView.SCROLL_STATE_IDLE) {
+            //Will be done when scroll becomes idle
+            return;
+        }
+        if (recyclerView.isComputingLayout()) {
+            recyclerView.post(recenterRunnable);
+            return;
+        }
+        int shift = layoutManager.getCurrentPosition() - CENTER;
+        if (Math.abs(shift) <= RECENTER_DISTANCE) {
+            return;
+        }
+        origin -= shift;
+        //Holders keep their positions until RecyclerView offsets them, which only notifications do.
+        //It happens once in hundreds of millions of items and at idle, attached holders keep their bounds
+        layoutManager.onPositionsShiftedSilently();
+        if (shift > 0) {
+            notifyItemRangeRemoved(0, shift);
+            notifyItemRangeInserted(getItemCount() - shift, shift);
+        } else {
+            notifyItemRangeRemoved(getItemCount() + shift, -shift);
+            notifyItemRangeInserted(0, -shift);
+        }
+    }
+
     private void setPosition(int position) {
         layoutManager.scrollToPosition(position);
     }
 
-    //TODO: handle proper data set change notifications
+    private void resetPosition() {
+        origin = CENTER;
+        if (layoutManager != null) {
+            setPosition(getInitialPosition());
+        }
+    }
+
+    /**
+     * Keeps the current real item at the current virtual position and rebinds only the views
+     * around it which now show a different item. Virtual item count never changes, so the
+     * layout doesn't move and there is nothing to insert or remove on the virtual level.
+     * OnItemChangedListeners are notified if the current item or its real position changed.
+     */
+    private void onStructureChanged(StructureChange change, int first, int second) {
+        int newItemCount = wrapped.getItemCount();
+        int oldItemCount = change.getOldItemCount(newItemCount, first, second);
+        boolean wasInfinite = oldItemCount > 1;
+        if (layoutManager == null || wasInfinite != isInfinite()) {
+            resetPosition();
+            notifyDataSetChanged();
+            return;
+        }
+        if (!isInfinite()) {
+            //Virtual positions are the real ones
+            change.dispatch(InfiniteScrollAdapter.this, first, second);
+            return;
+        }
+
+        int current = layoutManager.getCurrentPosition();
+        int oldCurrentReal = floorMod((long) current - origin, oldItemCount);
+        int newCurrentReal = change.toNewPosition(oldCurrentReal, first, second);
+        boolean isCurrentRemoved = newCurrentReal == DiscreteScrollLayoutManager.NO_POSITION;
+        if (isCurrentRemoved) {
+            //Current item was removed, the one which took its place becomes current
+            newCurrentReal = Math.min(first, newItemCount - 1);
+        }
+        int oldOrigin = origin;
+        origin = current - newCurrentReal;
+        if (isCurrentRemoved || newCurrentReal != oldCurrentReal) {
+            //Virtual position stays the same, so the layout manager can't see that the current item changed
+            layoutManager.onCurrentItemReplaced();
+        }
+
+        int windowStart = getNotifyWindowStart(current);
+        int windowEnd = getNotifyWindowEnd(current);
+        int changedRangeStart = DiscreteScrollLayoutManager.NO_POSITION;
+        for (int position = windowStart; position <= windowEnd; position++) {
+            int oldReal = floorMod((long) position - oldOrigin, oldItemCount);
+            boolean isChanged = change.toOldPosition(mapPositionToReal(position), first, second) != oldReal;
+            if (isChanged && changedRangeStart == DiscreteScrollLayoutManager.NO_POSITION) {
+                changedRangeStart = position;
+            } else if (!isChanged && changedRangeStart != DiscreteScrollLayoutManager.NO_POSITION) {
+                notifyItemRangeChanged(changedRangeStart, position - changedRangeStart);
+                changedRangeStart = DiscreteScrollLayoutManager.NO_POSITION;
+            }
+        }
+        if (changedRangeStart != DiscreteScrollLayoutManager.NO_POSITION) {
+            notifyItemRangeChanged(changedRangeStart, windowEnd - changedRangeStart + 1);
+        }
+    }
+
+    //Only virtual copies of the changed items which can have a bound view are notified
+    private void onContentChanged(int positionStart, int itemCount, Object payload) {
+        if (!isInfinite()) {
+            notifyItemRangeChanged(positionStart, itemCount, payload);
+            return;
+        }
+        if (layoutManager == null) {
+            notifyItemRangeChanged(0, getItemCount(), payload);
+            return;
+        }
+        int current = layoutManager.getCurrentPosition();
+        int windowStart = getNotifyWindowStart(current);
+        int windowEnd = getNotifyWindowEnd(current);
+        int changedRangeStart = DiscreteScrollLayoutManager.NO_POSITION;
+        for (int position = windowStart; position <= windowEnd; position++) {
+            int real = mapPositionToReal(position);
+            boolean isChanged = real >= positionStart && real < positionStart + itemCount;
+            if (isChanged && changedRangeStart == DiscreteScrollLayoutManager.NO_POSITION) {
+                changedRangeStart = position;
+            } else if (!isChanged && changedRangeStart != DiscreteScrollLayoutManager.NO_POSITION) {
+                notifyItemRangeChanged(changedRangeStart, position - changedRangeStart, payload);
+                changedRangeStart = DiscreteScrollLayoutManager.NO_POSITION;
+            }
+        }
+        if (changedRangeStart != DiscreteScrollLayoutManager.NO_POSITION) {
+            notifyItemRangeChanged(changedRangeStart, windowEnd - changedRangeStart + 1, payload);
+        }
+    }
+
+    private int getNotifyWindowStart(int current) {
+        int first = layoutManager.lastAttachedPosition >= layoutManager.firstAttachedPosition ?
+                layoutManager.firstAttachedPosition : current;
+        return Math.max(0, first - NOTIFY_WINDOW_MARGIN);
+    }
+
+    private int getNotifyWindowEnd(int current) {
+        int last = layoutManager.lastAttachedPosition >= layoutManager.firstAttachedPosition ?
+                layoutManager.lastAttachedPosition : current;
+        return (int) Math.min(Integer.MAX_VALUE - 1L, (long) last + NOTIFY_WINDOW_MARGIN);
+    }
+
     private class DataSetChangeDelegate extends RecyclerView.AdapterDataObserver {
 
         @Override
         public void onChanged() {
-            setPosition(getInitialPosition());
+            copyKeys.clear();
+            resetPosition();
             notifyDataSetChanged();
         }
 
         @Override
         public void onItemRangeRemoved(int positionStart, int itemCount) {
-            onChanged();
+            onStructureChanged(StructureChange.REMOVE, positionStart, itemCount);
         }
 
         @Override
         public void onItemRangeInserted(int positionStart, int itemCount) {
-            onChanged();
+            onStructureChanged(StructureChange.INSERT, positionStart, itemCount);
         }
 
         @Override
         public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
-            onChanged();
+            if (itemCount != 1) {
+                //RecyclerView doesn't support moves of multiple items
+                onChanged();
+                return;
+            }
+            onStructureChanged(StructureChange.MOVE, fromPosition, toPosition);
         }
 
         @Override
         public void onItemRangeChanged(int positionStart, int itemCount) {
-            notifyItemRangeChanged(0, getItemCount());
+            onContentChanged(positionStart, itemCount, null);
         }
 
         @Override
         public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
-            notifyItemRangeChanged(0, getItemCount(), payload);
+            onContentChanged(positionStart, itemCount, payload);
         }
     }
-}
\ No newline at end of file
+
+    //Maps real positions between the old and the new data set, NO_POSITION if item doesn't exist in the other one
+    private enum StructureChange {
+        INSERT {
+            @Override
+            int getOldItemCount(int newItemCount, int positionStart, int itemCount) {
+                return newItemCount - itemCount;
+            }
+
+            @Override
+            int toOldPosition(int newPosition, int positionStart, int itemCount) {
+                if (newPosition < positionStart) {
+                    return newPosition;
+                }
+                return newPosition < positionStart + itemCount ?
+                        DiscreteScrollLayoutManager.NO_POSITION :
+                        newPosition - itemCount;
+            }
+
+            @Override
+            int toNewPosition(int oldPosition, int positionStart, int itemCount) {
+                return oldPosition < positionStart ? oldPosition : oldPosition + itemCount;
+            }
+
+            @Override
+            void dispatch(RecyclerView.Adapter<?> adapter, int positionStart, int itemCount) {
+                adapter.notifyItemRangeInserted(positionStart, itemCount);
+            }
+        },
+        REMOVE {
+            @Override
+            int getOldItemCount(int newItemCount, int positionStart, int itemCount) {
+                return newItemCount + itemCount;
+            }
+
+            @Override
+            int toOldPosition(int newPosition, int positionStart, int itemCount) {
+                return newPosition < positionStart ? newPosition : newPosition + itemCount;
+            }
+
+            @Override
+            int toNewPosition(int oldPosition, int positionStart, int itemCount) {
+                if (oldPosition < positionStart) {
+                    return oldPosition;
+                }
+                return oldPosition < positionStart + itemCount ?
+                        DiscreteScrollLayoutManager.NO_POSITION :
+                        oldPosition - itemCount;
+            }
+
+            @Override
+            void dispatch(RecyclerView.Adapter<?> adapter, int positionStart, int itemCount) {
+                adapter.notifyItemRangeRemoved(positionStart, itemCount);
+            }
+        },
+        MOVE {
+            @Override
+            int getOldItemCount(int newItemCount, int fromPosition, int toPosition) {
+                return newItemCount;
+            }
+
+            @Override
+            int toOldPosition(int newPosition, int fromPosition, int toPosition) {
+                return toNewPosition(newPosition, toPosition, fromPosition);
+            }
+
+            @Override
+            int toNewPosition(int oldPosition, int fromPosition, int toPosition) {
+                if (oldPosition == fromPosition) {
+                    return toPosition;
+                } else if (fromPosition < toPosition && oldPosition > fromPosition && oldPosition <= toPosition) {
+                    return oldPosition - 1;
+                } else if (fromPosition > toPosition && oldPosition >= toPosition && oldPosition < fromPosition) {
+                    return oldPosition + 1;
+                }
+                return oldPosition;
+            }
+
+            @Override
+            void dispatch(RecyclerView.Adapter<?> adapter, int fromPosition, int toPosition) {
+                adapter.notifyItemMoved(fromPosition, toPosition);
+            }
+        };
+
+        abstract int getOldItemCount(int newItemCount, int first, int second);
+
+        abstract int toOldPosition(int newPosition, int first, int second);
+
+        abstract int toNewPosition(int oldPosition, int first, int second);
+
+        abstract void dispatch(RecyclerView.Adapter<?> adapter, int first, int second);
+    }
+}
@@ -0,0 +1,150 @@
+package com.yarolegovich.discretescrollview;
+
+import java.util.Arrays;
+
+/**
+ * Sizes of items along the scroll axis with O(log n) prefix sums.
+ * Items which weren't measured yet are assumed to have the estimated size. The tree
+ * stores only deltas from the estimate, so resetting the index is a single array fill.
+ */
+class ItemSizeIndex {
+
+    private int estimatedSize;
+    private int itemCount;
+    //Fenwick tree over (size - estimatedSize), 1-based
+    private long[] tree;
+    private int[] sizes;
+
+    ItemSizeIndex() {
+        tree = new long[1];
+        sizes = new int[0];
+    }
+
+    void reset(int itemCount, int estimatedSize) {
+        this.itemCount = itemCount;
+        this.estimatedSize = estimatedSize;
+        if (sizes.length < itemCount) {
+            sizes = new int[itemCount];
+            tree = new long[itemCount + 1];
+        } else {
+            Arrays.fill(tree, 0);
+        }
+        Arrays.fill(sizes, 0, itemCount, estimatedSize);
+    }
+
+    /**
+     * Inserts items of the estimated size, sizes of the other items are kept.
+     */
+    void insert(int positionStart, int count) {
+        int newItemCount = itemCount + count;
+        if (sizes.length < newItemCount) {
+            sizes = Arrays.copyOf(sizes, newItemCount);
+            tree = new long[newItemCount + 1];
+        }
+        System.arraycopy(sizes, positionStart, sizes, positionStart + count, itemCount - positionStart);
+        Arrays.fill(sizes, positionStart, positionStart + count, estimatedSize);
+        itemCount = newItemCount;
+        rebuildTree();
+    }
+
+    void remove(int positionStart, int count) {
+        int end = positionStart + count;
+        System.arraycopy(sizes, end, sizes, positionStart, itemCount - end);
+        itemCount -= count;
+        rebuildTree();
+    }
+
+    void move(int from, int to) {
+        int size = sizes[from];
+        if (from < to) {
+            System.arraycopy(sizes, from + 1, sizes, from, to - from);
+        } else {
+            System.arraycopy(sizes, to, sizes, to + 1, from - to);
+        }
+        sizes[to] = size;
+        rebuildTree();
+    }
+
+    //Items are measured again when they are laid out
+    void invalidate(int positionStart, int count) {
+        for (int position = positionStart; position < positionStart + count; position++) {
+            setSize(position, estimatedSize);
+        }
+    }
+
+    int getItemCount() {
+        return itemCount;
+    }
+
+    int getSize(int position) {
+        return sizes[position];
+    }
+
+    void setSize(int position, int size) {
+        long delta = size - sizes[position];
+        if (delta == 0) {
+            return;
+        }
+        sizes[position] = size;
+        for (int i = position + 1; i <= itemCount; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * @return sum of sizes of the items before position
+     */
+    long getOffset(int position) {
+        long sum = (long) position * estimatedSize;
+        for (int i = position; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * @return distance between the center of the first item and the center of the item at position
+     */
+    long getCenterOffset(int position) {
+        return getOffset(position) + sizes[position] / 2 - sizes[0] / 2;
+    }
+
+    //Linear time construction, each node adds itself to its parent
+    private void rebuildTree() {
+        Arrays.fill(tree, 0, itemCount + 1, 0);
+        for (int i = 1; i <= itemCount; i++) {
+            tree[i] += sizes[i - 1] - estimatedSize;
+            int parent = i + (i & -i);
+            if (parent <= itemCount) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    long getTotalSize() {
+        return getOffset(itemCount);
+    }
+
+    /**
+     * @return position of the item which contains the point at the given offset from the start
+     * of the first item. Offsets outside of the items are clamped to the first or the last item.
+     */
+    int getPositionAt(long offset) {
+        if (offset <= 0 || itemCount == 0) {
+            return 0;
+        }
+        int position = 0;
+        long remaining = offset;
+        for (int step = Integer.highestOneBit(itemCount); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= itemCount) {
+                long rangeSize = tree[next] + (long) step * estimatedSize;
+                if (rangeSize <= remaining) {
+                    position = next;
+                    remaining -= rangeSize;
+                }
+            }
+        }
+        return Math.min(position, itemCount - 1);
+    }
+}
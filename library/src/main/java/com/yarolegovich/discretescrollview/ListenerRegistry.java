@@ -0,0 +1,58 @@
+package com.yarolegovich.discretescrollview;
+
+/**
+ * Copy-on-write list of listeners. Dispatch iterates an array which is never modified,
+ * so listeners can add or remove listeners from their callbacks.
+ */
+class ListenerRegistry<T> {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private Object[] listeners = EMPTY;
+
+    void add(T listener) {
+        Object[] newListeners = new Object[listeners.length + 1];
+        System.arraycopy(listeners, 0, newListeners, 0, listeners.length);
+        newListeners[listeners.length] = listener;
+        listeners = newListeners;
+    }
+
+    /**
+     * Listeners are compared by identity, only the first occurrence is removed.
+     */
+    boolean remove(Object listener) {
+        int index = indexOf(listener);
+        if (index == -1) {
+            return false;
+        }
+        if (listeners.length == 1) {
+            listeners = EMPTY;
+            return true;
+        }
+        Object[] newListeners = new Object[listeners.length - 1];
+        System.arraycopy(listeners, 0, newListeners, 0, index);
+        System.arraycopy(listeners, index + 1, newListeners, index, newListeners.length - index);
+        listeners = newListeners;
+        return true;
+    }
+
+    boolean isEmpty() {
+        return listeners.length == 0;
+    }
+
+    /**
+     * @return listeners registered at the moment of the call. The array must not be modified.
+     */
+    Object[] getListeners() {
+        return listeners;
+    }
+
+    private int indexOf(Object listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
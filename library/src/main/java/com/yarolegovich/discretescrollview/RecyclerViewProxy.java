@@ -1,5 +1,6 @@
 package com.yarolegovich.discretescrollview;
 
+import android.graphics.Rect;
 import android.view.View;
 import android.view.ViewGroup;
 
@@ -12,9 +13,11 @@ import androidx.recyclerview.widget.RecyclerView;
 public class RecyclerViewProxy {
 
     private RecyclerView.LayoutManager layoutManager;
+    private Rect decorInsets;
 
     public RecyclerViewProxy(@NonNull RecyclerView.LayoutManager layoutManager) {
         this.layoutManager = layoutManager;
+        this.decorInsets = new Rect();
     }
 
     public void attachView(View view) {
@@ -37,6 +40,10 @@ public class RecyclerViewProxy {
         recycler.recycleView(view);
     }
 
+    public void removeAndRecycleView(View view, RecyclerView.Recycler recycler) {
+        layoutManager.removeAndRecycleView(view, recycler);
+    }
+
     public void removeAndRecycleAllViews(RecyclerView.Recycler recycler) {
         layoutManager.removeAndRecycleAllViews(recycler);
     }
@@ -52,10 +59,35 @@ public class RecyclerViewProxy {
     public View getMeasuredChildForAdapterPosition(int position, RecyclerView.Recycler recycler) {
         View view = recycler.getViewForPosition(position);
         layoutManager.addView(view);
-        layoutManager.measureChildWithMargins(view, 0, 0);
+        measureChild(view);
         return view;
     }
 
+    /**
+     * Measures the child with exact specs, so that its size with margins and decorations matches
+     * the given one. Unlike measureChildWithMargins it doesn't depend on LayoutParams of the child.
+     */
+    public View getMeasuredChildForAdapterPosition(int position, int width, int height, RecyclerView.Recycler recycler) {
+        View view = recycler.getViewForPosition(position);
+        layoutManager.addView(view);
+        measureChildExactly(view, width, height);
+        return view;
+    }
+
+    public void measureChild(View view) {
+        layoutManager.measureChildWithMargins(view, 0, 0);
+    }
+
+    public void measureChildExactly(View view, int width, int height) {
+        layoutManager.calculateItemDecorationsForChild(view, decorInsets);
+        ViewGroup.MarginLayoutParams lp = (ViewGroup.MarginLayoutParams) view.getLayoutParams();
+        int childWidth = width - lp.leftMargin - lp.rightMargin - decorInsets.left - decorInsets.right;
+        int childHeight = height - lp.topMargin - lp.bottomMargin - decorInsets.top - decorInsets.bottom;
+        view.measure(
+                View.MeasureSpec.makeMeasureSpec(Math.max(0, childWidth), View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(Math.max(0, childHeight), View.MeasureSpec.EXACTLY));
+    }
+
     public void layoutDecoratedWithMargins(View v, int left, int top, int right, int bottom) {
         layoutManager.layoutDecoratedWithMargins(v, left, top, right, bottom);
     }
@@ -0,0 +1,31 @@
+package com.yarolegovich.discretescrollview.physics;
+
+/**
+ * Default physics. Without velocity a settle through one item takes the same time and has the same
+ * deceleration as the LinearSmoothScroller which was used before. Settles through multiple items
+ * take longer, but not proportionally to the distance, and a fling keeps its release velocity.
+ */
+public class DecayScrollPhysics implements DiscreteScrollPhysics {
+
+    //Ratio between time for scrolling and time for deceleration used by LinearSmoothScroller
+    private static final float DECELERATION_TIME_FACTOR = 0.3356f;
+
+    @Override
+    public int prepareSettle(int distance, float velocity, int itemSize, int timeForItemSettle) {
+        float items = itemSize > 0 ? distance / (float) itemSize : 1f;
+        float itemsFactor = items <= 1f ? Math.max(0.01f, items) : (float) Math.sqrt(items);
+        int duration = (int) Math.ceil(itemsFactor * timeForItemSettle / DECELERATION_TIME_FACTOR);
+        if (velocity > 0) {
+            //Initial speed of 1 - (1 - t)^2 is 2 * distance / duration
+            int durationForVelocity = (int) (2000f * distance / velocity);
+            duration = Math.min(duration, Math.max(durationForVelocity, timeForItemSettle / 2));
+        }
+        return Math.max(1, duration);
+    }
+
+    @Override
+    public float getInterpolation(float input) {
+        float remaining = 1f - input;
+        return 1f - remaining * remaining;
+    }
+}
@@ -0,0 +1,20 @@
+package com.yarolegovich.discretescrollview.physics;
+
+import android.view.animation.Interpolator;
+
+/**
+ * Describes how DiscreteScrollView settles to the target item after a fling, a drag or a smooth scroll.
+ * One instance is reused for every settle of a DiscreteScrollView, so it shouldn't be shared between views.
+ */
+public interface DiscreteScrollPhysics extends Interpolator {
+    /**
+     * Called before each settle. After this call {@link #getInterpolation(float)} must describe the new settle.
+     *
+     * @param distance          absolute distance to the target in pixels
+     * @param velocity          absolute release velocity in pixels per second, 0 if settle wasn't caused by a fling
+     * @param itemSize          distance between the centers of the current item and its neighbour
+     * @param timeForItemSettle value set with DiscreteScrollView.setItemTransitionTimeMillis
+     * @return duration of the settle in milliseconds
+     */
+    int prepareSettle(int distance, float velocity, int itemSize, int timeForItemSettle);
+}
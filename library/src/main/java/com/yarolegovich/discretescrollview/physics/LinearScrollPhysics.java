@@ -0,0 +1,24 @@
+package com.yarolegovich.discretescrollview.physics;
+
+/**
+ * Scrolls with a constant speed of one item per timeForItemSettle,
+ * or with the release velocity of a fling if it is faster.
+ */
+public class LinearScrollPhysics implements DiscreteScrollPhysics {
+
+    @Override
+    public int prepareSettle(int distance, float velocity, int itemSize, int timeForItemSettle) {
+        int duration = itemSize > 0 ?
+                (int) ((long) distance * timeForItemSettle / itemSize) :
+                timeForItemSettle;
+        if (velocity > 0) {
+            duration = Math.min(duration, (int) (1000f * distance / velocity));
+        }
+        return Math.max(1, duration);
+    }
+
+    @Override
+    public float getInterpolation(float input) {
+        return input;
+    }
+}
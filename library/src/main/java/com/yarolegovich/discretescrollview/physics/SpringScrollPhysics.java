@@ -0,0 +1,57 @@
+package com.yarolegovich.discretescrollview.physics;
+
+import androidx.annotation.FloatRange;
+
+/**
+ * Critically damped spring which starts with the release velocity of a fling.
+ * Overshoot is clamped, so a settle never scrolls past its target.
+ */
+public class SpringScrollPhysics implements DiscreteScrollPhysics {
+
+    public static final float STIFFNESS_LOW = 200f;
+    public static final float STIFFNESS_MEDIUM = 400f;
+    public static final float STIFFNESS_HIGH = 1500f;
+
+    //Settle is over when less than this amount of pixels is left to scroll
+    private static final float REST_THRESHOLD = 0.5f;
+    private static final float MAX_DURATION_SECONDS = 3f;
+    private static final float DURATION_SEARCH_STEP_SECONDS = 1f / 120;
+
+    private final float naturalFrequency;
+    private float initialVelocity;
+    private float durationSeconds;
+
+    public SpringScrollPhysics() {
+        this(STIFFNESS_MEDIUM);
+    }
+
+    public SpringScrollPhysics(@FloatRange(from = 1) float stiffness) {
+        this.naturalFrequency = (float) Math.sqrt(stiffness);
+    }
+
+    @Override
+    public int prepareSettle(int distance, float velocity, int itemSize, int timeForItemSettle) {
+        //Velocity is normalized, because getInterpolation works with the distance of 1
+        initialVelocity = distance > 0 ? velocity / distance : 0f;
+        float threshold = distance > 0 ? REST_THRESHOLD / distance : 1f;
+        float time = DURATION_SEARCH_STEP_SECONDS;
+        while (time < MAX_DURATION_SECONDS && 1f - position(time) > threshold) {
+            time += DURATION_SEARCH_STEP_SECONDS;
+        }
+        durationSeconds = time;
+        return Math.max(1, (int) (time * 1000));
+    }
+
+    @Override
+    public float getInterpolation(float input) {
+        if (input >= 1f) {
+            return 1f;
+        }
+        return Math.min(1f, position(input * durationSeconds));
+    }
+
+    private float position(float time) {
+        float decay = (float) Math.exp(-naturalFrequency * time);
+        return 1f - (1f + (naturalFrequency - initialVelocity) * time) * decay;
+    }
+}
@@ -0,0 +1,111 @@
+package com.yarolegovich.discretescrollview.transform;
+
+import android.view.View;
+
+import androidx.core.view.ViewCompat;
+
+/**
+ * View properties which can be animated by {@link PipelineTransformer}.
+ */
+public enum ItemProperty {
+    SCALE {
+        @Override
+        float get(View view) {
+            return view.getScaleX();
+        }
+
+        @Override
+        void set(View view, float value) {
+            view.setScaleX(value);
+            view.setScaleY(value);
+        }
+    },
+    ALPHA {
+        @Override
+        float get(View view) {
+            return view.getAlpha();
+        }
+
+        @Override
+        void set(View view, float value) {
+            view.setAlpha(value);
+        }
+    },
+    ROTATION {
+        @Override
+        float get(View view) {
+            return view.getRotation();
+        }
+
+        @Override
+        void set(View view, float value) {
+            view.setRotation(value);
+        }
+    },
+    ROTATION_X {
+        @Override
+        float get(View view) {
+            return view.getRotationX();
+        }
+
+        @Override
+        void set(View view, float value) {
+            view.setRotationX(value);
+        }
+    },
+    ROTATION_Y {
+        @Override
+        float get(View view) {
+            return view.getRotationY();
+        }
+
+        @Override
+        void set(View view, float value) {
+            view.setRotationY(value);
+        }
+    },
+    TRANSLATION_X {
+        @Override
+        float get(View view) {
+            return view.getTranslationX();
+        }
+
+        @Override
+        void set(View view, float value) {
+            view.setTranslationX(value);
+        }
+    },
+    TRANSLATION_Y {
+        @Override
+        float get(View view) {
+            return view.getTranslationY();
+        }
+
+        @Override
+        void set(View view, float value) {
+            view.setTranslationY(value);
+        }
+    },
+    ELEVATION {
+        @Override
+        float get(View view) {
+            return ViewCompat.getElevation(view);
+        }
+
+        @Override
+        void set(View view, float value) {
+            ViewCompat.setElevation(view, value);
+        }
+    };
+
+    abstract float get(View view);
+
+    abstract void set(View view, float value);
+
+    //Each property setter invalidates the view, so the value is set only if it is different
+    void apply(View view, float value) {
+        if (get(view) != value) {
+            set(view, value);
+        }
+    }
+}
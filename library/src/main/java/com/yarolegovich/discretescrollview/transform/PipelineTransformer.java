@@ -0,0 +1,143 @@
+package com.yarolegovich.discretescrollview.transform;
+
+import android.view.View;
+import android.view.animation.Interpolator;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies a chain of property stages to each item. Curve of every stage is sampled once, when the
+ * transformer is built, so a frame costs a table lookup per stage and no interpolator evaluation.
+ */
+public class PipelineTransformer implements DiscreteScrollItemTransformer {
+
+    //Number of intervals the [-1, 1] position range is split into
+    private static final int SAMPLES = 256;
+
+    private Pivot pivotX;
+    private Pivot pivotY;
+    private ItemProperty[] properties;
+    private float[][] tables;
+
+    private PipelineTransformer() {
+        pivotX = Pivot.X.CENTER.create();
+        pivotY = Pivot.Y.CENTER.create();
+    }
+
+    @Override
+    public void transformItem(View item, float position) {
+        pivotX.setOn(item);
+        pivotY.setOn(item);
+        float index = (Math.min(Math.max(-1f, position), 1f) + 1f) * (SAMPLES / 2f);
+        int sample = Math.min((int) index, SAMPLES - 1);
+        float fraction = index - sample;
+        for (int i = 0; i < properties.length; i++) {
+            float[] table = tables[i];
+            float value = table[sample] + (table[sample + 1] - table[sample]) * fraction;
+            properties[i].apply(item, value);
+        }
+    }
+
+    private static float[] sample(float start, float center, float end, @Nullable Interpolator interpolator) {
+        float[] table = new float[SAMPLES + 1];
+        for (int i = 0; i <= SAMPLES; i++) {
+            float position = i * (2f / SAMPLES) - 1f;
+            float closenessToCenter = 1f - Math.abs(position);
+            if (interpolator != null) {
+                closenessToCenter = interpolator.getInterpolation(closenessToCenter);
+            }
+            float side = position < 0 ? start : end;
+            table[i] = side + (center - side) * closenessToCenter;
+        }
+        return table;
+    }
+
+    public static class Builder {
+
+        private PipelineTransformer transformer;
+        private List<ItemProperty> properties;
+        private List<float[]> tables;
+
+        public Builder() {
+            transformer = new PipelineTransformer();
+            properties = new ArrayList<>();
+            tables = new ArrayList<>();
+        }
+
+        /**
+         * @param start  value of the property when item is at position -1 and further
+         * @param center value of the property when item is the current one
+         * @param end    value of the property when item is at position 1 and further
+         */
+        public Builder addStage(@NonNull ItemProperty property, float start, float center, float end) {
+            return addStage(property, start, center, end, null);
+        }
+
+        /**
+         * @param interpolator maps closeness of the item to the center, from 0 at the sides to 1 in the center.
+         *                     Linear if null.
+         */
+        public Builder addStage(@NonNull ItemProperty property,
+                                float start, float center, float end,
+                                @Nullable Interpolator interpolator) {
+            properties.add(property);
+            tables.add(sample(start, center, end, interpolator));
+            return this;
+        }
+
+        public Builder scale(float minScale, float maxScale) {
+            return addStage(ItemProperty.SCALE, minScale, maxScale, minScale);
+        }
+
+        public Builder alpha(float minAlpha, float maxAlpha) {
+            return addStage(ItemProperty.ALPHA, minAlpha, maxAlpha, minAlpha);
+        }
+
+        /**
+         * Items before the current one are rotated by the given degrees and items after it by the negated degrees.
+         */
+        public Builder rotationY(float degrees) {
+            return addStage(ItemProperty.ROTATION_Y, degrees, 0f, -degrees);
+        }
+
+        public Builder elevation(float minElevation, float maxElevation) {
+            return addStage(ItemProperty.ELEVATION, minElevation, maxElevation, minElevation);
+        }
+
+        public Builder setPivotX(Pivot.X pivotX) {
+            return setPivotX(pivotX.create());
+        }
+
+        public Builder setPivotX(Pivot pivot) {
+            assertAxis(pivot, Pivot.AXIS_X);
+            transformer.pivotX = pivot;
+            return this;
+        }
+
+        public Builder setPivotY(Pivot.Y pivotY) {
+            return setPivotY(pivotY.create());
+        }
+
+        public Builder setPivotY(Pivot pivot) {
+            assertAxis(pivot, Pivot.AXIS_Y);
+            transformer.pivotY = pivot;
+            return this;
+        }
+
+        public PipelineTransformer build() {
+            transformer.properties = properties.toArray(new ItemProperty[properties.size()]);
+            transformer.tables = tables.toArray(new float[tables.size()][]);
+            return transformer;
+        }
+
+        private void assertAxis(Pivot pivot, @Pivot.Axis int axis) {
+            if (pivot.getAxis() != axis) {
+                throw new IllegalArgumentException("You passed a Pivot for wrong axis.");
+            }
+        }
+    }
+}
@@ -28,36 +28,35 @@ public class Pivot {
     }
 
     public void setOn(View view) {
+        //Pivot depends only on the size of the view, so it rarely changes between frames.
+        //Setting it anyway would push a display list update for every child on every frame
         if (axis == AXIS_X) {
-            switch (pivotPoint) {
-                case PIVOT_CENTER:
-                    view.setPivotX(view.getWidth() * 0.5f);
-                    break;
-                case PIVOT_MAX:
-                    view.setPivotX(view.getWidth());
-                    break;
-                default:
-                    view.setPivotX(pivotPoint);
-                    break;
+            float pivot = getPivotFor(view.getWidth());
+            if (view.getPivotX() != pivot) {
+                view.setPivotX(pivot);
             }
             return;
         }
 
         if (axis == AXIS_Y) {
-            switch (pivotPoint) {
-                case PIVOT_CENTER:
-                    view.setPivotY(view.getHeight() * 0.5f);
-                    break;
-                case PIVOT_MAX:
-                    view.setPivotY(view.getHeight());
-                    break;
-                default:
-                    view.setPivotY(pivotPoint);
-                    break;
+            float pivot = getPivotFor(view.getHeight());
+            if (view.getPivotY() != pivot) {
+                view.setPivotY(pivot);
             }
         }
     }
 
+    private float getPivotFor(int size) {
+        switch (pivotPoint) {
+            case PIVOT_CENTER:
+                return size * 0.5f;
+            case PIVOT_MAX:
+                return size;
+            default:
+                return pivotPoint;
+        }
+    }
+
     @Axis
     public int getAxis() {
         return axis;
@@ -27,8 +27,10 @@ public class  ScaleTransformer implements DiscreteScrollItemTransformer {
         pivotY.setOn(item);
         float closenessToCenter = 1f - Math.abs(position);
         float scale = minScale + maxMinDiff * closenessToCenter;
-        item.setScaleX(scale);
-        item.setScaleY(scale);
+        if (item.getScaleX() != scale || item.getScaleY() != scale) {
+            item.setScaleX(scale);
+            item.setScaleY(scale);
+        }
     }
 
     public static class Builder {
@@ -35,6 +35,11 @@ public class ScrollListenerAdapter<T extends RecyclerView.ViewHolder> implements
         adaptee.onScroll(scrollPosition, currentIndex, newIndex, currentHolder, newCurrentHolder);
     }
 
+    @NonNull
+    public DiscreteScrollView.ScrollListener<T> getAdaptee() {
+        return adaptee;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof ScrollListenerAdapter) {
@@ -0,0 +1,239 @@
+package com.yarolegovich.discretescrollview;
+
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Models attached, detached, scrapped and recycled views of a RecyclerView, so that
+ * DiscreteScrollLayoutManager can run on the JVM without binding. Views are pooled and child
+ * bounds are tracked here, so steady state scroll doesn't measure or allocate in the proxy itself.
+ * Shared by unit tests and benchmarks.
+ */
+abstract class PooledRecyclerViewProxy extends RecyclerViewProxy {
+
+    private final int width, height;
+    private final int childWidth, childHeight;
+    private int adapterItemCount;
+
+    private final List<Child> children = new ArrayList<>();
+    private final List<Child> detached = new ArrayList<>();
+    private final List<Child> scrap = new ArrayList<>();
+    private final List<Child> pool = new ArrayList<>();
+
+    PooledRecyclerViewProxy(
+            @NonNull RecyclerView.LayoutManager layoutManager,
+            int width, int height,
+            int childWidth, int childHeight,
+            int adapterItemCount) {
+        super(layoutManager);
+        this.width = width;
+        this.height = height;
+        this.childWidth = childWidth;
+        this.childHeight = childHeight;
+        this.adapterItemCount = adapterItemCount;
+    }
+
+    @Override
+    public void attachView(View view) {
+        children.add(detached.remove(indexOf(detached, view)));
+    }
+
+    @Override
+    public void detachView(View view) {
+        detached.add(children.remove(indexOf(children, view)));
+    }
+
+    @Override
+    public void detachAndScrapView(View view, RecyclerView.Recycler recycler) {
+        scrap.add(children.remove(indexOf(children, view)));
+    }
+
+    @Override
+    public void detachAndScrapAttachedViews(RecyclerView.Recycler recycler) {
+        scrap.addAll(children);
+        children.clear();
+    }
+
+    @Override
+    public void recycleView(View view, RecyclerView.Recycler recycler) {
+        pool.add(detached.remove(indexOf(detached, view)));
+    }
+
+    @Override
+    public void removeAndRecycleView(View view, RecyclerView.Recycler recycler) {
+        pool.add(children.remove(indexOf(children, view)));
+    }
+
+    @Override
+    public void removeAndRecycleAllViews(RecyclerView.Recycler recycler) {
+        removeAllViews();
+    }
+
+    @Override
+    public void removeAllViews() {
+        pool.addAll(children);
+        children.clear();
+    }
+
+    @Override
+    public int getChildCount() {
+        return children.size();
+    }
+
+    @Override
+    public int getItemCount() {
+        return adapterItemCount;
+    }
+
+    @Override
+    public View getMeasuredChildForAdapterPosition(int position, RecyclerView.Recycler recycler) {
+        Child child = null;
+        for (int i = 0; i < scrap.size(); i++) {
+            if (scrap.get(i).position == position) {
+                child = scrap.remove(i);
+                break;
+            }
+        }
+        if (child == null) {
+            child = pool.isEmpty() ? new Child(createView()) : pool.remove(pool.size() - 1);
+        }
+        child.position = position;
+        children.add(child);
+        return child.view;
+    }
+
+    @Override
+    public View getMeasuredChildForAdapterPosition(int position, int width, int height, RecyclerView.Recycler recycler) {
+        return getMeasuredChildForAdapterPosition(position, recycler);
+    }
+
+    @Override
+    public void measureChild(View view) {
+        //NOP
+    }
+
+    @Override
+    public void measureChildExactly(View view, int width, int height) {
+        //NOP
+    }
+
+    @Override
+    public void layoutDecoratedWithMargins(View v, int left, int top, int right, int bottom) {
+        Child child = children.get(indexOf(children, v));
+        child.left = left;
+        child.top = top;
+        child.right = right;
+        child.bottom = bottom;
+    }
+
+    @Override
+    public View getChildAt(int index) {
+        return children.get(index).view;
+    }
+
+    @Override
+    public int getPosition(View view) {
+        return children.get(indexOf(children, view)).position;
+    }
+
+    @Override
+    public int getMeasuredWidthWithMargin(View child) {
+        return childWidth;
+    }
+
+    @Override
+    public int getMeasuredHeightWithMargin(View child) {
+        return childHeight;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public void offsetChildrenHorizontal(int amount) {
+        for (int i = 0; i < children.size(); i++) {
+            Child child = children.get(i);
+            child.left += amount;
+            child.right += amount;
+        }
+    }
+
+    @Override
+    public void offsetChildrenVertical(int amount) {
+        for (int i = 0; i < children.size(); i++) {
+            Child child = children.get(i);
+            child.top += amount;
+            child.bottom += amount;
+        }
+    }
+
+    @Override
+    public void requestLayout() {
+        //NOP
+    }
+
+    @Override
+    public void startSmoothScroll(RecyclerView.SmoothScroller smoothScroller) {
+        //NOP
+    }
+
+    //Called when the pool is empty, views are reused for any position afterwards
+    protected abstract View createView();
+
+    //RecyclerView recycles views which were scrapped but not reused at the end of a layout pass
+    void recycleScrap() {
+        pool.addAll(scrap);
+        scrap.clear();
+    }
+
+    //Same checks as DSVOrientation helpers do, but on the bounds tracked by this proxy
+    boolean hasNewBecomeVisible(DiscreteScrollLayoutManager lm, boolean isHorizontal) {
+        if (children.isEmpty()) {
+            return false;
+        }
+        View firstView = lm.getFirstChild(), lastView = lm.getLastChild();
+        Child first = children.get(indexOf(children, firstView));
+        Child last = children.get(indexOf(children, lastView));
+        int firstStart = isHorizontal ? first.left : first.top;
+        int lastEnd = isHorizontal ? last.right : last.bottom;
+        int extraLayoutSpace = lm.getExtraLayoutSpace();
+        int endBound = (isHorizontal ? width : height) + extraLayoutSpace;
+        return (firstStart > -extraLayoutSpace && lm.hasItemsBefore(firstView))
+                || (lastEnd < endBound && lm.hasItemsAfter(lastView));
+    }
+
+    void setAdapterItemCount(int adapterItemCount) {
+        this.adapterItemCount = adapterItemCount;
+    }
+
+    private static int indexOf(List<Child> list, View view) {
+        for (int i = list.size() - 1; i >= 0; i--) {
+            if (list.get(i).view == view) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException();
+    }
+
+    private static class Child {
+        final View view;
+        int position;
+        int left, top, right, bottom;
+
+        Child(View view) {
+            this.view = view;
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package com.yarolegovich.discretescrollview;
 
+import android.graphics.Point;
 import android.view.View;
+import android.view.ViewGroup;
 
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.yarolegovich.discretescrollview.stub.StubRecyclerViewProxy;
+import com.yarolegovich.discretescrollview.transform.DiscreteScrollItemTransformer;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.robolectric.RuntimeEnvironment;
 
 import java.util.Arrays;
@@ -16,12 +21,15 @@ import java.util.List;
 import static com.yarolegovich.discretescrollview.DiscreteScrollLayoutManager.NO_POSITION;
 import static com.yarolegovich.discretescrollview.DiscreteScrollLayoutManager.SCROLL_TO_SNAP_TO_ANOTHER_ITEM;
 import static org.mockito.ArgumentMatchers.anyFloat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Matchers.any;
 import static org.junit.Assert.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
@@ -157,6 +165,186 @@ public abstract class DiscreteScrollLayoutManagerTest {
         assertThat(layoutManager.extraLayoutSpace, is(not(0)));
     }
 
+    @Test
+    public void initChildDimensions_fixedItemSize_noItemIsMeasured() {
+        layoutManager.setFixedItemSize(CHILD_WIDTH * 2, CHILD_HEIGHT * 2);
+
+        layoutManager.initChildDimensions(null);
+
+        assertThat(layoutManager.childHalfWidth, is(CHILD_WIDTH));
+        assertThat(layoutManager.childHalfHeight, is(CHILD_HEIGHT));
+        verify(stubRecyclerViewProxy, never()).getMeasuredChildForAdapterPosition(
+                anyInt(), nullable(RecyclerView.Recycler.class));
+    }
+
+    @Test
+    public void fill_fixedItemSize_childrenAreMeasuredWithFixedSize() {
+        layoutManager.setFixedItemSize(CHILD_WIDTH, CHILD_HEIGHT);
+        when(stubState.getItemCount()).thenReturn(ADAPTER_ITEM_COUNT);
+
+        layoutManager.onLayoutChildren(null, stubState);
+
+        verify(stubRecyclerViewProxy).getMeasuredChildForAdapterPosition(
+                eq(0), eq(CHILD_WIDTH), eq(CHILD_HEIGHT), nullable(RecyclerView.Recycler.class));
+    }
+
+    @Test
+    public void updateRecyclerDimensions_itemSizeFraction_childrenAreKeptAndItemSizeIsResolved() {
+        layoutManager.setItemSizeFraction(0.5f, 1f);
+        stubRecyclerViewProxy.addChildren(3, 0);
+
+        layoutManager.updateRecyclerDimensions(stubState);
+
+        verify(stubRecyclerViewProxy, never()).removeAllViews();
+        assertThat(stubRecyclerViewProxy.getChildCount(), is(3));
+        assertThat(layoutManager.childHalfWidth, is(RECYCLER_WIDTH / 4));
+        assertThat(layoutManager.childHalfHeight, is(RECYCLER_HEIGHT / 2));
+    }
+
+    @Test
+    public void onLayoutChildren_dimensionsChanged_viewsAreScrappedAndChildDimensionsReinitialized() {
+        stubRecyclerViewProxy.addChildren(3, 0);
+        when(stubState.getItemCount()).thenReturn(ADAPTER_ITEM_COUNT);
+
+        layoutManager.onLayoutChildren(null, stubState);
+
+        verify(stubRecyclerViewProxy, never()).removeAllViews();
+        verify(stubRecyclerViewProxy, times(1)).detachAndScrapAttachedViews(nullable(RecyclerView.Recycler.class));
+        assertThat(layoutManager.childHalfWidth, is(CHILD_WIDTH / 2));
+        assertFalse(layoutManager.childDimensionsInvalid);
+    }
+
+    @Test
+    public void onLayoutChildren_nothingMoved_onlyChildrenWhichRequestedLayoutAreMeasured() {
+        prepareLaidOutChildren();
+        View requestingChild = stubRecyclerViewProxy.getChildAt(1);
+        when(requestingChild.isLayoutRequested()).thenReturn(true);
+
+        layoutManager.onLayoutChildren(null, stubState);
+
+        verify(stubRecyclerViewProxy, never()).detachAndScrapAttachedViews(nullable(RecyclerView.Recycler.class));
+        verify(stubRecyclerViewProxy).measureChild(requestingChild);
+        verify(stubRecyclerViewProxy, times(1)).measureChild(any(View.class));
+    }
+
+    @Test
+    public void onLayoutChildren_childChanged_fullLayoutIsDone() {
+        prepareLaidOutChildren();
+        RecyclerView.LayoutParams changedParams = mock(RecyclerView.LayoutParams.class);
+        when(changedParams.isItemChanged()).thenReturn(true);
+        when(stubRecyclerViewProxy.getChildAt(1).getLayoutParams()).thenReturn(changedParams);
+
+        layoutManager.onLayoutChildren(null, stubState);
+
+        verify(stubRecyclerViewProxy).detachAndScrapAttachedViews(nullable(RecyclerView.Recycler.class));
+    }
+
+    @Test
+    public void onLayoutChildren_currentPositionChanged_fullLayoutIsDone() {
+        prepareLaidOutChildren();
+        layoutManager.currentPosition = 5;
+
+        layoutManager.onLayoutChildren(null, stubState);
+
+        verify(stubRecyclerViewProxy).detachAndScrapAttachedViews(nullable(RecyclerView.Recycler.class));
+    }
+
+    @Test
+    public void scrollToPosition_attachedPosition_childrenAreOffsetWithoutLayout() {
+        prepareLaidOutChildren();
+        layoutManager.scrolled = layoutManager.laidOutScrolled = 20;
+        doReturn(false).when(stubOrientationHelper).hasNewBecomeVisible(any(DiscreteScrollLayoutManager.class));
+
+        layoutManager.scrollToPosition(5);
+
+        assertThat(layoutManager.currentPosition, is(5));
+        assertThat(layoutManager.scrolled, is(0));
+        verify(stubOrientationHelper).offsetChildren(20 - layoutManager.scrollToChangeCurrent, stubRecyclerViewProxy);
+        verify(stubRecyclerViewProxy, never()).requestLayout();
+    }
+
+    @Test
+    public void scrollToPosition_attachedPositionAndNewBecomeVisible_layoutIsRequested() {
+        prepareLaidOutChildren();
+        doReturn(true).when(stubOrientationHelper).hasNewBecomeVisible(any(DiscreteScrollLayoutManager.class));
+
+        layoutManager.scrollToPosition(3);
+
+        assertThat(layoutManager.currentPosition, is(3));
+        verify(stubOrientationHelper).offsetChildren(layoutManager.scrollToChangeCurrent, stubRecyclerViewProxy);
+        verify(stubRecyclerViewProxy).requestLayout();
+    }
+
+    @Test
+    public void scrollToPosition_infiniteScrollAttachedPosition_currentPositionIsNormalized() {
+        layoutManager.setInfiniteScrollEnabled(true);
+        prepareLaidOutChildren();
+        doReturn(false).when(stubOrientationHelper).hasNewBecomeVisible(any(DiscreteScrollLayoutManager.class));
+
+        layoutManager.scrollToPosition(5);
+
+        assertThat(layoutManager.currentPosition, is(ADAPTER_ITEM_COUNT + 5));
+        assertThat(layoutManager.laidOutPosition, is(ADAPTER_ITEM_COUNT + 5));
+        assertThat(layoutManager.firstAttachedPosition, is(ADAPTER_ITEM_COUNT + 3));
+        assertThat(layoutManager.lastAttachedPosition, is(ADAPTER_ITEM_COUNT + 5));
+        assertThat(layoutManager.getCurrentPosition(), is(5));
+        verify(stubOrientationHelper).offsetChildren(-layoutManager.scrollToChangeCurrent, stubRecyclerViewProxy);
+    }
+
+    @Test
+    public void scrollToPosition_notAttachedPosition_childrenAreNotOffset() {
+        prepareLaidOutChildren();
+
+        layoutManager.scrollToPosition(8);
+
+        assertThat(layoutManager.currentPosition, is(8));
+        verify(stubOrientationHelper, never()).offsetChildren(anyInt(), any(RecyclerViewProxy.class));
+        verify(stubRecyclerViewProxy).requestLayout();
+    }
+
+    @Test
+    public void onItemsAdded_variableItemSize_measuredSizesOutsideOfChangeAreKept() {
+        prepareMeasuredItemSizes();
+        stubRecyclerViewProxy.setAdapterItemCount(ADAPTER_ITEM_COUNT + 1);
+
+        layoutManager.onItemsAdded(null, 5, 1);
+
+        assertThat(layoutManager.sizeIndex.getItemCount(), is(ADAPTER_ITEM_COUNT + 1));
+        assertThat(layoutManager.sizeIndex.getSize(2), is(17));
+        assertThat(layoutManager.sizeIndex.getSize(5), is(layoutManager.scrollToChangeCurrent));
+        assertThat(layoutManager.sizeIndex.getSize(8), is(23));
+    }
+
+    @Test
+    public void onItemsRemoved_variableItemSize_measuredSizesOutsideOfChangeAreKept() {
+        prepareMeasuredItemSizes();
+        stubRecyclerViewProxy.setAdapterItemCount(ADAPTER_ITEM_COUNT - 1);
+
+        layoutManager.onItemsRemoved(null, 5, 1);
+
+        assertThat(layoutManager.sizeIndex.getItemCount(), is(ADAPTER_ITEM_COUNT - 1));
+        assertThat(layoutManager.sizeIndex.getSize(2), is(17));
+        assertThat(layoutManager.sizeIndex.getSize(6), is(23));
+    }
+
+    @Test
+    public void onItemsUpdated_variableItemSize_onlyUpdatedSizesAreDiscarded() {
+        prepareMeasuredItemSizes();
+
+        layoutManager.onItemsUpdated(null, 7, 1);
+
+        assertThat(layoutManager.sizeIndex.getSize(2), is(17));
+        assertThat(layoutManager.sizeIndex.getSize(7), is(layoutManager.scrollToChangeCurrent));
+    }
+
+    @Test
+    public void setOrientation_viewsAreNotRemoved() {
+        layoutManager.setOrientation(DSVOrientation.VERTICAL);
+
+        verify(stubRecyclerViewProxy, never()).removeAllViews();
+        assertTrue(layoutManager.childDimensionsInvalid);
+    }
+
     @Test
     public void updateRecyclerDimensions_recyclerCenterIsInitialized() {
         layoutManager.recyclerCenter.set(0, 0);
@@ -193,6 +381,95 @@ public abstract class DiscreteScrollLayoutManagerTest {
         }
     }
 
+    @Test
+    public void fill_viewsAlreadyAttached_attachedViewsAreNotDetachedOrRebound() {
+        final int firstAttached = 4, lastAttached = 6;
+        stubRecyclerViewProxy.addChildren(lastAttached - firstAttached + 1, firstAttached);
+        layoutManager.firstAttachedPosition = firstAttached;
+        layoutManager.lastAttachedPosition = lastAttached;
+        layoutManager.currentPosition = firstAttached + 1;
+        layoutManager.recyclerCenter.set(RECYCLER_WIDTH / 2, RECYCLER_HEIGHT / 2);
+        layoutManager.childHalfWidth = CHILD_WIDTH / 2;
+        layoutManager.childHalfHeight = CHILD_HEIGHT / 2;
+        layoutManager.scrollToChangeCurrent = stubOrientationHelper.getDistanceToChangeCurrent(CHILD_WIDTH, CHILD_HEIGHT);
+        layoutManager.scrolled = layoutManager.scrollToChangeCurrent;
+
+        layoutManager.fill(null);
+
+        verify(stubRecyclerViewProxy, never()).detachView(any(View.class));
+        for (int position = firstAttached; position <= lastAttached; position++) {
+            verify(stubRecyclerViewProxy, never()).getMeasuredChildForAdapterPosition(
+                    eq(position), nullable(RecyclerView.Recycler.class));
+        }
+    }
+
+    @Test
+    public void fill_metricsSet_viewsAndPhasesAreCounted() {
+        DiscreteScrollMetrics metrics = new DiscreteScrollMetrics();
+        layoutManager.setMetrics(metrics);
+        when(stubState.getItemCount()).thenReturn(ADAPTER_ITEM_COUNT);
+
+        layoutManager.onLayoutChildren(null, stubState);
+
+        DiscreteScrollMetrics.Snapshot snapshot = metrics.snapshot();
+        assertThat(snapshot.getCount(DiscreteScrollMetrics.Phase.FILL), is(1L));
+        assertThat(snapshot.getViewsFromRecycler(), is(greaterThan(0L)));
+        assertThat(snapshot.getCount(DiscreteScrollMetrics.Phase.LAYOUT_VIEW),
+                is(snapshot.getViewsFromRecycler() + snapshot.getDetachedCacheHits()));
+    }
+
+    @Test
+    public void findViewByPosition_viewAttachedAtPosition_viewIsTakenFromIndex() {
+        stubRecyclerViewProxy.addChildren(3, 4);
+        View child = stubRecyclerViewProxy.getChildAt(1);
+        when(child.getParent()).thenReturn(mock(ViewGroup.class));
+        layoutManager.attachedViews.put(5, child);
+
+        assertThat(layoutManager.findViewByPosition(5), is(child));
+    }
+
+    @Test
+    public void findViewByPosition_indexedViewNoLongerAttached_viewIsNotReturned() {
+        stubRecyclerViewProxy.addChildren(3, 4);
+        View child = stubRecyclerViewProxy.getChildAt(1);
+        layoutManager.attachedViews.put(5, child);
+
+        assertThat(layoutManager.findViewByPosition(5), is(not(child)));
+    }
+
+    @Test
+    public void onLayoutChildren_laidOutViewsAreIndexedByPosition() {
+        when(stubState.getItemCount()).thenReturn(ADAPTER_ITEM_COUNT);
+
+        layoutManager.onLayoutChildren(null, stubState);
+
+        assertThat(layoutManager.attachedViews.size(),
+                is(layoutManager.lastAttachedPosition - layoutManager.firstAttachedPosition + 1));
+        assertNotNull(layoutManager.attachedViews.get(layoutManager.currentPosition));
+    }
+
+    @Test
+    public void applyItemTransformToChildren_positionUnchanged_childIsNotTransformedAgain() {
+        DiscreteScrollItemTransformer transformer = mock(DiscreteScrollItemTransformer.class);
+        View child = prepareTransformedChild(transformer);
+
+        layoutManager.applyItemTransformToChildren();
+        layoutManager.applyItemTransformToChildren();
+
+        verify(transformer, times(1)).transformItem(eq(child), anyFloat());
+    }
+
+    @Test
+    public void applyItemTransformToChildren_transformInvalidated_childIsTransformedAgain() {
+        DiscreteScrollItemTransformer transformer = mock(DiscreteScrollItemTransformer.class);
+        View child = prepareTransformedChild(transformer);
+
+        layoutManager.applyItemTransformToChildren();
+        layoutManager.setTransformClampItemCount(2);
+
+        verify(transformer, times(2)).transformItem(eq(child), anyFloat());
+    }
+
     @Test
     public void recycleDetachedViewsAndClearCache_cacheIsClearedAndViewsAreRecycled() {
         List<View> views = Arrays.asList(mock(View.class), mock(View.class), mock(View.class));
@@ -554,10 +831,306 @@ public abstract class DiscreteScrollLayoutManagerTest {
         assertThat(layoutManager.pendingScroll, is(0));
     }
 
+    @Test
+    public void smoothScrollToPosition_furtherThanJumpThreshold_jumpsCloseToTarget() {
+        layoutManager.currentPosition = 0;
+        layoutManager.setSmoothScrollJumpThreshold(2);
+        when(stubState.getItemCount()).thenReturn(ADAPTER_ITEM_COUNT);
+
+        layoutManager.smoothScrollToPosition(null, stubState, ADAPTER_ITEM_COUNT - 1);
+
+        assertThat(layoutManager.currentPosition, is(ADAPTER_ITEM_COUNT - 3));
+        assertThat(layoutManager.pendingJumpPosition, is(ADAPTER_ITEM_COUNT - 1));
+        verify(stubRecyclerViewProxy).requestLayout();
+        verify(stubRecyclerViewProxy, never()).startSmoothScroll(any(RecyclerView.SmoothScroller.class));
+    }
+
+    @Test
+    public void onLayoutCompleted_positionShiftedByDataSetChange_scrollStateListenerIsNotified() {
+        stubRecyclerViewProxy.setAdapterItemCount(ADAPTER_ITEM_COUNT + 3);
+        layoutManager.currentPosition = 5;
+
+        layoutManager.onItemsAdded(null, 0, 3);
+        layoutManager.onLayoutCompleted(stubState);
+
+        verify(mockScrollStateListener).onDataSetChangeChangedPosition();
+    }
+
+    @Test
+    public void onLayoutCompleted_positionShiftIsSilent_scrollStateListenerIsNotNotified() {
+        stubRecyclerViewProxy.setAdapterItemCount(ADAPTER_ITEM_COUNT + 3);
+        layoutManager.currentPosition = 5;
+        layoutManager.onPositionsShiftedSilently();
+
+        layoutManager.onItemsAdded(null, 0, 3);
+        layoutManager.onLayoutCompleted(stubState);
+
+        verify(mockScrollStateListener, never()).onDataSetChangeChangedPosition();
+        assertFalse(layoutManager.isPositionShiftSilent);
+    }
+
+    @Test
+    public void collectInitialPrefetchPositions_atFirstItem_nextItemsArePrefetched() {
+        RecyclerView.LayoutManager.LayoutPrefetchRegistry mockRegistry = mock(RecyclerView.LayoutManager.LayoutPrefetchRegistry.class);
+        layoutManager.setInitialPrefetchItemCount(3);
+        layoutManager.currentPosition = 0;
+
+        layoutManager.collectInitialPrefetchPositions(ADAPTER_ITEM_COUNT, mockRegistry);
+
+        InOrder inOrder = inOrder(mockRegistry);
+        inOrder.verify(mockRegistry).addPosition(0, 0);
+        inOrder.verify(mockRegistry).addPosition(1, 0);
+        inOrder.verify(mockRegistry).addPosition(2, 0);
+        verify(mockRegistry, times(3)).addPosition(anyInt(), anyInt());
+    }
+
+    @Test
+    public void collectInitialPrefetchPositions_infiniteScrollAtFirstItem_lastItemIsPrefetched() {
+        RecyclerView.LayoutManager.LayoutPrefetchRegistry mockRegistry = mock(RecyclerView.LayoutManager.LayoutPrefetchRegistry.class);
+        layoutManager.setInfiniteScrollEnabled(true);
+        layoutManager.setInitialPrefetchItemCount(3);
+        layoutManager.currentPosition = ADAPTER_ITEM_COUNT;
+
+        layoutManager.collectInitialPrefetchPositions(ADAPTER_ITEM_COUNT, mockRegistry);
+
+        InOrder inOrder = inOrder(mockRegistry);
+        inOrder.verify(mockRegistry).addPosition(0, 0);
+        inOrder.verify(mockRegistry).addPosition(1, 0);
+        inOrder.verify(mockRegistry).addPosition(ADAPTER_ITEM_COUNT - 1, 0);
+        verify(mockRegistry, times(3)).addPosition(anyInt(), anyInt());
+    }
+
+    @Test
+    public void collectInitialPrefetchPositions_infiniteScrollFewItems_eachItemIsPrefetchedOnce() {
+        RecyclerView.LayoutManager.LayoutPrefetchRegistry mockRegistry = mock(RecyclerView.LayoutManager.LayoutPrefetchRegistry.class);
+        stubRecyclerViewProxy.setAdapterItemCount(2);
+        layoutManager.setInfiniteScrollEnabled(true);
+        layoutManager.setInitialPrefetchItemCount(5);
+        layoutManager.currentPosition = 2;
+
+        layoutManager.collectInitialPrefetchPositions(2, mockRegistry);
+
+        verify(mockRegistry).addPosition(0, 0);
+        verify(mockRegistry).addPosition(1, 0);
+        verify(mockRegistry, times(2)).addPosition(anyInt(), anyInt());
+    }
+
+    @Test
+    public void collectAdjacentPrefetchPositions_towardsEnd_nextItemsArePrefetchedByDistance() {
+        RecyclerView.LayoutManager.LayoutPrefetchRegistry mockRegistry = mock(RecyclerView.LayoutManager.LayoutPrefetchRegistry.class);
+        preparePrefetch(0);
+
+        layoutManager.collectAdjacentPrefetchPositions(1, 1, stubState, mockRegistry);
+
+        InOrder inOrder = inOrder(mockRegistry);
+        inOrder.verify(mockRegistry).addPosition(1, getExpectedPrefetchDistance(1));
+        inOrder.verify(mockRegistry).addPosition(2, getExpectedPrefetchDistance(2));
+        inOrder.verify(mockRegistry).addPosition(3, getExpectedPrefetchDistance(3));
+        verify(mockRegistry, times(3)).addPosition(anyInt(), anyInt());
+    }
+
+    @Test
+    public void collectAdjacentPrefetchPositions_towardsStartAtFirstItem_nothingIsPrefetched() {
+        RecyclerView.LayoutManager.LayoutPrefetchRegistry mockRegistry = mock(RecyclerView.LayoutManager.LayoutPrefetchRegistry.class);
+        preparePrefetch(0);
+
+        layoutManager.collectAdjacentPrefetchPositions(-1, -1, stubState, mockRegistry);
+
+        verify(mockRegistry, never()).addPosition(anyInt(), anyInt());
+    }
+
+    @Test
+    public void collectAdjacentPrefetchPositions_infiniteScrollTowardsStartAtFirstItem_lastItemsArePrefetched() {
+        RecyclerView.LayoutManager.LayoutPrefetchRegistry mockRegistry = mock(RecyclerView.LayoutManager.LayoutPrefetchRegistry.class);
+        layoutManager.setInfiniteScrollEnabled(true);
+        preparePrefetch(ADAPTER_ITEM_COUNT);
+
+        layoutManager.collectAdjacentPrefetchPositions(-1, -1, stubState, mockRegistry);
+
+        InOrder inOrder = inOrder(mockRegistry);
+        inOrder.verify(mockRegistry).addPosition(ADAPTER_ITEM_COUNT - 1, getExpectedPrefetchDistance(1));
+        inOrder.verify(mockRegistry).addPosition(ADAPTER_ITEM_COUNT - 2, getExpectedPrefetchDistance(2));
+        inOrder.verify(mockRegistry).addPosition(ADAPTER_ITEM_COUNT - 3, getExpectedPrefetchDistance(3));
+        verify(mockRegistry, times(3)).addPosition(anyInt(), anyInt());
+    }
+
+    @Test
+    public void collectAdjacentPrefetchPositions_infiniteScrollAllItemsAttached_nothingIsPrefetched() {
+        RecyclerView.LayoutManager.LayoutPrefetchRegistry mockRegistry = mock(RecyclerView.LayoutManager.LayoutPrefetchRegistry.class);
+        layoutManager.setInfiniteScrollEnabled(true);
+        preparePrefetch(ADAPTER_ITEM_COUNT);
+        layoutManager.firstAttachedPosition = ADAPTER_ITEM_COUNT;
+        layoutManager.lastAttachedPosition = ADAPTER_ITEM_COUNT * 2 - 1;
+
+        layoutManager.collectAdjacentPrefetchPositions(1, 1, stubState, mockRegistry);
+
+        verify(mockRegistry, never()).addPosition(anyInt(), anyInt());
+    }
+
+    @Test
+    public void onLayoutCompleted_afterJump_settlesToJumpTarget() {
+        layoutManager.scrollToChangeCurrent = stubOrientationHelper.getDistanceToChangeCurrent(CHILD_WIDTH, CHILD_HEIGHT);
+        layoutManager.currentPosition = ADAPTER_ITEM_COUNT - 3;
+        layoutManager.pendingJumpPosition = ADAPTER_ITEM_COUNT - 1;
+
+        layoutManager.onLayoutCompleted(stubState);
+
+        assertThat(layoutManager.pendingJumpPosition, is(NO_POSITION));
+        assertThat(layoutManager.pendingPosition, is(ADAPTER_ITEM_COUNT - 1));
+        assertThat(layoutManager.pendingScroll, is(layoutManager.scrollToChangeCurrent * 2));
+        verify(stubRecyclerViewProxy).startSmoothScroll(any(RecyclerView.SmoothScroller.class));
+    }
+
+    @Test
+    public void calculateAllowedScrollIn_infiniteScrollAtFirstItem_boundIsNotReached() {
+        layoutManager.setInfiniteScrollEnabled(true);
+        layoutManager.scrollToChangeCurrent = stubOrientationHelper.getDistanceToChangeCurrent(CHILD_WIDTH, CHILD_HEIGHT);
+        layoutManager.currentPosition = ADAPTER_ITEM_COUNT;
+        layoutManager.scrolled = 0;
+
+        int allowedScroll = layoutManager.calculateAllowedScrollIn(Direction.START);
+
+        assertThat(allowedScroll, is(layoutManager.scrollToChangeCurrent));
+        verify(mockScrollStateListener).onIsBoundReachedFlagChange(false);
+    }
+
+    @Test
+    public void smoothScrollToPosition_infiniteScroll_takesShortestPath() {
+        layoutManager.setInfiniteScrollEnabled(true);
+        layoutManager.scrollToChangeCurrent = stubOrientationHelper.getDistanceToChangeCurrent(CHILD_WIDTH, CHILD_HEIGHT);
+        layoutManager.currentPosition = ADAPTER_ITEM_COUNT;
+        when(stubState.getItemCount()).thenReturn(ADAPTER_ITEM_COUNT);
+
+        layoutManager.smoothScrollToPosition(null, stubState, ADAPTER_ITEM_COUNT - 1);
+
+        assertThat(layoutManager.pendingScroll, is(-layoutManager.scrollToChangeCurrent));
+        assertThat(layoutManager.getCurrentPosition(), is(0));
+        verify(stubRecyclerViewProxy).startSmoothScroll(any(RecyclerView.SmoothScroller.class));
+    }
+
+    @Test
+    public void smoothScrollToPosition_infiniteScroll_scrollerIsReusedAndTargetsAdapterPosition() {
+        layoutManager.setInfiniteScrollEnabled(true);
+        layoutManager.scrollToChangeCurrent = stubOrientationHelper.getDistanceToChangeCurrent(CHILD_WIDTH, CHILD_HEIGHT);
+        layoutManager.currentPosition = ADAPTER_ITEM_COUNT + 3;
+        when(stubState.getItemCount()).thenReturn(ADAPTER_ITEM_COUNT);
+
+        layoutManager.smoothScrollToPosition(null, stubState, 4);
+        layoutManager.pendingPosition = NO_POSITION;
+        layoutManager.smoothScrollToPosition(null, stubState, 2);
+
+        ArgumentCaptor<RecyclerView.SmoothScroller> captor = ArgumentCaptor.forClass(RecyclerView.SmoothScroller.class);
+        verify(stubRecyclerViewProxy, times(2)).startSmoothScroll(captor.capture());
+        List<RecyclerView.SmoothScroller> scrollers = captor.getAllValues();
+        assertSame(scrollers.get(0), scrollers.get(1));
+        assertThat(scrollers.get(1).getTargetPosition(), is(3));
+    }
+
+    @Test
+    public void scrollBy_infiniteScrollAcrossFirstItem_lastItemIsAttached() {
+        layoutManager.setInfiniteScrollEnabled(true);
+        layoutManager.recyclerCenter.set(RECYCLER_WIDTH / 2, RECYCLER_HEIGHT / 2);
+        layoutManager.childHalfWidth = CHILD_WIDTH / 2;
+        layoutManager.childHalfHeight = CHILD_HEIGHT / 2;
+        layoutManager.scrollToChangeCurrent = stubOrientationHelper.getDistanceToChangeCurrent(CHILD_WIDTH, CHILD_HEIGHT);
+        stubRecyclerViewProxy.addChildren(3, 0);
+        layoutManager.firstAttachedPosition = ADAPTER_ITEM_COUNT;
+        layoutManager.lastAttachedPosition = ADAPTER_ITEM_COUNT + 2;
+        layoutManager.currentPosition = ADAPTER_ITEM_COUNT + 1;
+        int amount = -(layoutManager.scrollToChangeCurrent * 3 / 2);
+        doReturn(Math.abs(amount)).when(layoutManager).calculateAllowedScrollIn(any(Direction.class));
+        //First child is away from the start edge, last one is beyond the end edge
+        doReturn(1).when(layoutManager).getDecoratedLeft(any(View.class));
+        doReturn(1).when(layoutManager).getDecoratedTop(any(View.class));
+        doReturn(Integer.MAX_VALUE).when(layoutManager).getDecoratedRight(any(View.class));
+        doReturn(Integer.MAX_VALUE).when(layoutManager).getDecoratedBottom(any(View.class));
+
+        layoutManager.scrollBy(amount, null);
+
+        verify(stubRecyclerViewProxy).getMeasuredChildForAdapterPosition(
+                eq(ADAPTER_ITEM_COUNT - 1),
+                nullable(RecyclerView.Recycler.class));
+        assertThat(layoutManager.firstAttachedPosition, lessThanOrEqualTo(ADAPTER_ITEM_COUNT - 1));
+    }
+
+    @Test
+    public void getFirstAndLastChild_childAttachedAtStartEdgeLast_childrenAreFoundByPosition() {
+        when(stubState.getItemCount()).thenReturn(ADAPTER_ITEM_COUNT);
+        layoutManager.updateRecyclerDimensions(stubState);
+        layoutManager.childHalfWidth = CHILD_WIDTH / 2;
+        layoutManager.childHalfHeight = CHILD_HEIGHT / 2;
+        layoutManager.scrollToChangeCurrent = stubOrientationHelper.getDistanceToChangeCurrent(CHILD_WIDTH, CHILD_HEIGHT);
+        layoutManager.currentPosition = 4;
+        List<View> views = Arrays.asList(mock(View.class), mock(View.class), mock(View.class));
+        for (int i = 0; i < views.size(); i++) {
+            doReturn(views.get(i)).when(stubRecyclerViewProxy)
+                    .getMeasuredChildForAdapterPosition(eq(3 + i), nullable(RecyclerView.Recycler.class));
+        }
+
+        //Current item first, then the end edge and the start edge, as fill does it
+        layoutManager.layoutView(null, 4, new Point());
+        layoutManager.layoutView(null, 5, new Point());
+        layoutManager.layoutView(null, 3, new Point());
+
+        assertThat(layoutManager.getFirstChild(), is(views.get(0)));
+        assertThat(layoutManager.getLastChild(), is(views.get(2)));
+    }
+
     private void prepareStubsForScrollBy(int allowedScroll, int childCount, boolean hasNewBecomeVisible) {
         doReturn(allowedScroll).when(layoutManager).calculateAllowedScrollIn(any(Direction.class));
         stubRecyclerViewProxy.addChildren(childCount, 0);
         doReturn(hasNewBecomeVisible).when(stubOrientationHelper).hasNewBecomeVisible(any(DiscreteScrollLayoutManager.class));
     }
 
+    private View prepareTransformedChild(DiscreteScrollItemTransformer transformer) {
+        layoutManager.setItemTransformer(transformer);
+        layoutManager.recyclerCenter.set(RECYCLER_WIDTH / 2, RECYCLER_HEIGHT / 2);
+        layoutManager.scrollToChangeCurrent = stubOrientationHelper.getDistanceToChangeCurrent(CHILD_WIDTH, CHILD_HEIGHT);
+        stubRecyclerViewProxy.addChildren(1, 0);
+        View child = stubRecyclerViewProxy.getChildAt(0);
+        when(child.getLayoutParams()).thenReturn(layoutManager.generateDefaultLayoutParams());
+        return child;
+    }
+
+    private void prepareLaidOutChildren() {
+        when(stubState.getItemCount()).thenReturn(ADAPTER_ITEM_COUNT);
+        layoutManager.updateRecyclerDimensions(stubState);
+        layoutManager.childDimensionsInvalid = false;
+        layoutManager.childHalfWidth = CHILD_WIDTH / 2;
+        layoutManager.childHalfHeight = CHILD_HEIGHT / 2;
+        layoutManager.scrollToChangeCurrent = stubOrientationHelper.getDistanceToChangeCurrent(CHILD_WIDTH, CHILD_HEIGHT);
+        stubRecyclerViewProxy.addChildren(3, 3);
+        for (int i = 0; i < stubRecyclerViewProxy.getChildCount(); i++) {
+            View child = stubRecyclerViewProxy.getChildAt(i);
+            when(child.getLayoutParams()).thenReturn(mock(RecyclerView.LayoutParams.class));
+        }
+        layoutManager.firstAttachedPosition = 3;
+        layoutManager.lastAttachedPosition = 5;
+        layoutManager.currentPosition = layoutManager.laidOutPosition = 4;
+        layoutManager.scrolled = layoutManager.laidOutScrolled = 0;
+    }
+
+    private void preparePrefetch(int position) {
+        layoutManager.scrollToChangeCurrent = stubOrientationHelper.getDistanceToChangeCurrent(CHILD_WIDTH, CHILD_HEIGHT);
+        layoutManager.extraLayoutSpace = 0;
+        layoutManager.setItemPrefetchCount(3);
+        layoutManager.currentPosition = position;
+        layoutManager.firstAttachedPosition = position;
+        layoutManager.lastAttachedPosition = position;
+        layoutManager.scrolled = 0;
+    }
+
+    //Distance between the edge of the layout window and the closest edge of the item
+    private int getExpectedPrefetchDistance(int itemsFromCurrent) {
+        int itemSize = layoutManager.scrollToChangeCurrent;
+        int windowHalfSize = stubOrientationHelper.getViewEnd(RECYCLER_WIDTH, RECYCLER_HEIGHT) / 2;
+        return Math.max(0, itemsFromCurrent * itemSize - itemSize / 2 - windowHalfSize);
+    }
+
+    private void prepareMeasuredItemSizes() {
+        layoutManager.scrollToChangeCurrent = stubOrientationHelper.getDistanceToChangeCurrent(CHILD_WIDTH, CHILD_HEIGHT);
+        layoutManager.setVariableItemSize(true);
+        layoutManager.sizeIndex.setSize(2, 17);
+        layoutManager.sizeIndex.setSize(7, 23);
+    }
 }
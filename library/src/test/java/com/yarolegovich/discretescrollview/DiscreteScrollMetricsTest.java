@@ -0,0 +1,60 @@
+package com.yarolegovich.discretescrollview;
+
+import com.yarolegovich.discretescrollview.DiscreteScrollMetrics.Phase;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+public class DiscreteScrollMetricsTest {
+
+    private DiscreteScrollMetrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new DiscreteScrollMetrics();
+    }
+
+    @Test
+    public void endPhase_durationsAreAccumulatedPerPhase() {
+        metrics.endPhase(Phase.FILL, metrics.startPhase() - 100);
+        metrics.endPhase(Phase.FILL, metrics.startPhase() - 300);
+
+        DiscreteScrollMetrics.Snapshot snapshot = metrics.snapshot();
+
+        assertThat(snapshot.getCount(Phase.FILL), is(2L));
+        assertThat(snapshot.getTotalNanos(Phase.FILL), greaterThanOrEqualTo(400L));
+        assertThat(snapshot.getMaxNanos(Phase.FILL), greaterThanOrEqualTo(300L));
+        assertThat(snapshot.getCount(Phase.FRAME), is(0L));
+        assertThat(snapshot.getAverageNanos(Phase.FRAME), is(0L));
+    }
+
+    @Test
+    public void onViewLaidOut_recyclerAndCacheAreCountedSeparately() {
+        metrics.onViewLaidOut(true);
+        metrics.onViewLaidOut(false);
+        metrics.onViewLaidOut(false);
+
+        DiscreteScrollMetrics.Snapshot snapshot = metrics.snapshot();
+
+        assertThat(snapshot.getDetachedCacheHits(), is(1L));
+        assertThat(snapshot.getViewsFromRecycler(), is(2L));
+    }
+
+    @Test
+    public void snapshotAndReset_nextSnapshotStartsFromZero() {
+        metrics.endPhase(Phase.TRANSFORM, metrics.startPhase());
+        metrics.onViewLaidOut(false);
+
+        DiscreteScrollMetrics.Snapshot first = metrics.snapshotAndReset();
+        DiscreteScrollMetrics.Snapshot second = metrics.snapshot();
+
+        assertThat(first.getCount(Phase.TRANSFORM), is(1L));
+        assertThat(first.getViewsFromRecycler(), is(1L));
+        assertThat(second.getCount(Phase.TRANSFORM), is(0L));
+        assertThat(second.getViewsFromRecycler(), is(0L));
+    }
+}
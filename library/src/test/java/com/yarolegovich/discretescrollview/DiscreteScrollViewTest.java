@@ -0,0 +1,192 @@
+package com.yarolegovich.discretescrollview;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Coalesced onScroll is posted to the next frame. The view is never attached to a window,
+ * so the frame never comes and pending onScroll is delivered only when it is flushed.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class DiscreteScrollViewTest {
+
+    private static final int RECYCLER_WIDTH = 400;
+    private static final int RECYCLER_HEIGHT = 600;
+    private static final int CHILD_WIDTH = 100;
+    private static final int ITEM_COUNT = 10;
+
+    private DiscreteScrollView view;
+    private StubAdapter adapter;
+    private DiscreteScrollLayoutManager layoutManager;
+    private RecordingListener listener;
+
+    @Before
+    public void setUp() {
+        view = new DiscreteScrollView(RuntimeEnvironment.application);
+        adapter = new StubAdapter();
+        view.setAdapter(adapter);
+        view.setScrollDispatchCoalesced(true);
+        layoutManager = (DiscreteScrollLayoutManager) view.getLayoutManager();
+        layout();
+
+        listener = new RecordingListener();
+        view.addScrollStateChangeListener(listener);
+        view.addOnItemChangedListener(listener);
+    }
+
+    @Test
+    public void scrollByWithinFrame_onScrollIsNotDispatchedImmediately() {
+        view.scrollBy(10, 0);
+        view.scrollBy(10, 0);
+        view.scrollBy(10, 0);
+
+        assertThat(listener.events, is(empty()));
+    }
+
+    @Test
+    public void scrollByWithinFrame_singleOnScrollWithLatestPosition() {
+        view.scrollBy(10, 0);
+        view.scrollBy(10, 0);
+        view.scrollBy(10, 0);
+
+        view.setScrollDispatchCoalesced(false);
+
+        assertThat(listener.events, contains(RecordingListener.SCROLL));
+        assertThat(listener.lastScrollPosition, is(-30f / CHILD_WIDTH));
+    }
+
+    @Test
+    public void scrollStart_pendingOnScrollIsDispatchedFirst() {
+        view.scrollBy(10, 0);
+
+        layoutManager.onScrollStateChanged(RecyclerView.SCROLL_STATE_DRAGGING);
+
+        assertThat(listener.events, contains(RecordingListener.SCROLL, RecordingListener.SCROLL_START));
+    }
+
+    @Test
+    public void scrollEnd_pendingOnScrollIsDispatchedBeforeScrollEndAndItemChange() {
+        layoutManager.onScrollStateChanged(RecyclerView.SCROLL_STATE_DRAGGING);
+        view.scrollBy(CHILD_WIDTH / 2, 0);
+        view.scrollBy(CHILD_WIDTH / 2, 0);
+
+        layoutManager.onScrollStateChanged(RecyclerView.SCROLL_STATE_IDLE);
+
+        assertThat(listener.events, contains(
+                RecordingListener.SCROLL_START,
+                RecordingListener.SCROLL,
+                RecordingListener.SCROLL_END,
+                RecordingListener.ITEM_CHANGED));
+    }
+
+    @Test
+    public void dataSetChange_pendingOnScrollIsDispatchedBeforeItemChange() {
+        view.scrollBy(10, 0);
+
+        adapter.itemCount++;
+        adapter.notifyItemInserted(0);
+        layout();
+
+        assertThat(listener.events, contains(RecordingListener.SCROLL, RecordingListener.ITEM_CHANGED));
+    }
+
+    @Test
+    public void coalescedScroll_dispatchIsRecordedForDeliveredListenerCalls() {
+        DiscreteScrollMetrics metrics = new DiscreteScrollMetrics();
+        view.setScrollMetrics(metrics);
+
+        layoutManager.onScrollStateChanged(RecyclerView.SCROLL_STATE_DRAGGING);
+        view.scrollBy(10, 0);
+        view.scrollBy(10, 0);
+        assertThat(metrics.snapshot().getCount(DiscreteScrollMetrics.Phase.DISPATCH), is(1L));
+
+        view.setScrollDispatchCoalesced(false);
+        //Scroll start and the single coalesced onScroll
+        assertThat(metrics.snapshot().getCount(DiscreteScrollMetrics.Phase.DISPATCH), is(2L));
+    }
+
+    private void layout() {
+        view.measure(
+                View.MeasureSpec.makeMeasureSpec(RECYCLER_WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(RECYCLER_HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, RECYCLER_WIDTH, RECYCLER_HEIGHT);
+    }
+
+    private static class RecordingListener implements
+            DiscreteScrollView.ScrollStateChangeListener<RecyclerView.ViewHolder>,
+            DiscreteScrollView.OnItemChangedListener<RecyclerView.ViewHolder> {
+
+        static final String SCROLL_START = "scrollStart";
+        static final String SCROLL = "scroll";
+        static final String SCROLL_END = "scrollEnd";
+        static final String ITEM_CHANGED = "itemChanged";
+
+        private final List<String> events = new ArrayList<>();
+        private float lastScrollPosition;
+
+        @Override
+        public void onScrollStart(@NonNull RecyclerView.ViewHolder currentItemHolder, int adapterPosition) {
+            events.add(SCROLL_START);
+        }
+
+        @Override
+        public void onScrollEnd(@NonNull RecyclerView.ViewHolder currentItemHolder, int adapterPosition) {
+            events.add(SCROLL_END);
+        }
+
+        @Override
+        public void onScroll(float scrollPosition, int currentPosition, int newPosition,
+                             @Nullable RecyclerView.ViewHolder currentHolder,
+                             @Nullable RecyclerView.ViewHolder newCurrent) {
+            events.add(SCROLL);
+            lastScrollPosition = scrollPosition;
+        }
+
+        @Override
+        public void onCurrentItemChanged(@Nullable RecyclerView.ViewHolder viewHolder, int adapterPosition) {
+            events.add(ITEM_CHANGED);
+        }
+    }
+
+    private static class StubAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        private int itemCount = ITEM_COUNT;
+
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View itemView = new View(parent.getContext());
+            itemView.setLayoutParams(new DiscreteScrollLayoutManager.LayoutParams(CHILD_WIDTH, RECYCLER_HEIGHT));
+            return new RecyclerView.ViewHolder(itemView) {};
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return itemCount;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.yarolegovich.discretescrollview;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class InfiniteScrollAdapterTest {
+
+    private static final int ITEM_COUNT = 5;
+    private static final int CHILD_SIZE = 100;
+
+    private StubAdapter wrapped;
+    private InfiniteScrollAdapter<RecyclerView.ViewHolder> adapter;
+    private DiscreteScrollLayoutManager layoutManager;
+    private RecyclerView.AdapterDataObserver mockObserver;
+
+    @Before
+    public void setUp() {
+        wrapped = new StubAdapter(ITEM_COUNT);
+        adapter = InfiniteScrollAdapter.wrap(wrapped);
+        DiscreteScrollView view = new DiscreteScrollView(RuntimeEnvironment.application);
+        view.setAdapter(adapter);
+        layoutManager = (DiscreteScrollLayoutManager) view.getLayoutManager();
+        mockObserver = mock(RecyclerView.AdapterDataObserver.class);
+        adapter.registerAdapterDataObserver(mockObserver);
+    }
+
+    @Test
+    public void itemInsertedBeforeCurrent_currentRealItemIsKept() {
+        layoutManager.currentPosition = adapter.getInitialPosition() + 2;
+
+        wrapped.itemCount++;
+        wrapped.notifyItemInserted(0);
+
+        assertThat(adapter.getRealCurrentPosition(), is(3));
+        verify(mockObserver, never()).onChanged();
+    }
+
+    @Test
+    public void currentItemRemoved_nextItemBecomesCurrent() {
+        layoutManager.currentPosition = adapter.getInitialPosition() + 2;
+
+        wrapped.itemCount--;
+        wrapped.notifyItemRemoved(2);
+
+        assertThat(adapter.getRealCurrentPosition(), is(2));
+        verify(mockObserver, never()).onChanged();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void currentItemRemoved_itemChangedListenerIsNotified() {
+        DiscreteScrollView view = new DiscreteScrollView(RuntimeEnvironment.application);
+        view.setAdapter(adapter);
+        layout(view);
+        DiscreteScrollView.OnItemChangedListener<RecyclerView.ViewHolder> listener =
+                mock(DiscreteScrollView.OnItemChangedListener.class);
+        view.addOnItemChangedListener(listener);
+        int current = view.getCurrentItem();
+
+        wrapped.itemCount--;
+        wrapped.notifyItemRemoved(adapter.getRealCurrentPosition());
+        layout(view);
+
+        verify(listener).onCurrentItemChanged(nullable(RecyclerView.ViewHolder.class), eq(current));
+    }
+
+    @Test
+    public void itemMovedOutsideOfWindow_nothingIsRebound() {
+        int current = adapter.getInitialPosition();
+        layoutManager.currentPosition = current;
+        layoutManager.firstAttachedPosition = current;
+        layoutManager.lastAttachedPosition = current;
+        wrapped.itemCount = 100;
+        wrapped.notifyDataSetChanged();
+
+        wrapped.notifyItemMoved(50, 51);
+
+        assertThat(adapter.getRealCurrentPosition(), is(0));
+        verify(mockObserver, never()).onItemRangeChanged(anyInt(), anyInt());
+    }
+
+    @Test
+    public void itemChangedWithPayload_onlyVirtualCopiesInWindowAreNotified() {
+        int current = adapter.getInitialPosition();
+        layoutManager.currentPosition = current;
+        wrapped.itemCount = 100;
+        wrapped.notifyDataSetChanged();
+        Object payload = new Object();
+
+        wrapped.notifyItemChanged(1, payload);
+
+        verify(mockObserver).onItemRangeChanged(current + 1, 1, payload);
+        verify(mockObserver, never()).onItemRangeChanged(anyInt(), anyInt());
+    }
+
+    @Test
+    public void stableIds_sameRealItemWithinWindow_idsAreUnique() {
+        int realItemCount = 2;
+        StubAdapter stableIdsAdapter = new StubAdapter(realItemCount);
+        stableIdsAdapter.setHasStableIds(true);
+
+        InfiniteScrollAdapter<RecyclerView.ViewHolder> wrapper = InfiniteScrollAdapter.wrap(stableIdsAdapter);
+        DiscreteScrollView view = new DiscreteScrollView(RuntimeEnvironment.application);
+        view.setAdapter(wrapper);
+        int initial = wrapper.getInitialPosition();
+        ((DiscreteScrollLayoutManager) view.getLayoutManager()).currentPosition = initial;
+
+        Set<Long> ids = new HashSet<>();
+        for (int position = initial - 3; position <= initial + 3; position++) {
+            assertTrue(ids.add(wrapper.getItemId(position)));
+        }
+        assertThat(wrapper.hasStableIds(), is(true));
+    }
+
+    @Test
+    public void stableIds_realItemCountLargerThanWindow_idsOfWrappedAdapterAreKept() {
+        StubAdapter stableIdsAdapter = new StubAdapter(100) {
+            @Override
+            public long getItemId(int position) {
+                //Like a database key which doesn't fit into 32 bits
+                return (1L << 40) + position;
+            }
+        };
+        stableIdsAdapter.setHasStableIds(true);
+        InfiniteScrollAdapter<RecyclerView.ViewHolder> wrapper = InfiniteScrollAdapter.wrap(stableIdsAdapter);
+        DiscreteScrollView view = new DiscreteScrollView(RuntimeEnvironment.application);
+        view.setAdapter(wrapper);
+        int initial = wrapper.getInitialPosition();
+        ((DiscreteScrollLayoutManager) view.getLayoutManager()).currentPosition = initial;
+
+        assertThat(wrapper.getItemId(initial + 1), is((1L << 40) + 1));
+        assertThat(wrapper.getItemId(initial + 100 + 1), is((1L << 40) + 1));
+    }
+
+    @Test
+    public void setHasStableIds_isForwardedToWrappedAdapter() {
+        StubAdapter stub = new StubAdapter(ITEM_COUNT);
+        InfiniteScrollAdapter<RecyclerView.ViewHolder> wrapper = InfiniteScrollAdapter.wrap(stub);
+
+        wrapper.setHasStableIds(true);
+
+        assertThat(stub.hasStableIds(), is(true));
+        assertThat(wrapper.getItemId(wrapper.getInitialPosition() + 1), is(1L));
+    }
+
+    @Test
+    public void onViewRecycled_isForwardedToWrappedAdapter() {
+        StubAdapter spyWrapped = spy(new StubAdapter(ITEM_COUNT));
+        InfiniteScrollAdapter<RecyclerView.ViewHolder> wrapper = InfiniteScrollAdapter.wrap(spyWrapped);
+        RecyclerView.ViewHolder holder = new RecyclerView.ViewHolder(new View(RuntimeEnvironment.application)) {};
+
+        wrapper.onViewRecycled(holder);
+
+        verify(spyWrapped).onViewRecycled(holder);
+    }
+
+    @Test
+    public void bindCloseToTheStart_itemIsBoundAndPositionsAreRecenteredAfterwards() {
+        StubAdapter spyWrapped = spy(new StubAdapter(ITEM_COUNT));
+        InfiniteScrollAdapter<RecyclerView.ViewHolder> wrapper = InfiniteScrollAdapter.wrap(spyWrapped);
+        DiscreteScrollView view = new DiscreteScrollView(RuntimeEnvironment.application);
+        view.setAdapter(wrapper);
+        RecyclerView.AdapterDataObserver observer = mock(RecyclerView.AdapterDataObserver.class);
+        wrapper.registerAdapterDataObserver(observer);
+        int current = 50;
+        ((DiscreteScrollLayoutManager) view.getLayoutManager()).currentPosition = current;
+        int real = wrapper.getRealPosition(current);
+        RecyclerView.ViewHolder holder = new RecyclerView.ViewHolder(new View(RuntimeEnvironment.application)) {};
+
+        wrapper.onBindViewHolder(holder, current);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        int shift = wrapper.getInitialPosition() - current;
+        verify(spyWrapped).onBindViewHolder(holder, real);
+        verify(observer).onItemRangeInserted(0, shift);
+        verify(observer).onItemRangeRemoved(wrapper.getItemCount() - shift, shift);
+        assertThat(wrapper.getRealPosition(current + shift), is(real));
+    }
+
+    @Test
+    public void recenter_currentItemChangeIsNotNotified() {
+        InfiniteScrollAdapter<RecyclerView.ViewHolder> wrapper = InfiniteScrollAdapter.wrap(new StubAdapter(ITEM_COUNT));
+        DiscreteScrollView view = new DiscreteScrollView(RuntimeEnvironment.application);
+        view.setAdapter(wrapper);
+        DiscreteScrollLayoutManager viewLayoutManager = (DiscreteScrollLayoutManager) view.getLayoutManager();
+        int current = 50;
+        viewLayoutManager.currentPosition = current;
+        RecyclerView.ViewHolder holder = new RecyclerView.ViewHolder(new View(RuntimeEnvironment.application)) {};
+
+        wrapper.onBindViewHolder(holder, current);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertTrue(viewLayoutManager.isPositionShiftSilent);
+    }
+
+    private static void layout(RecyclerView view) {
+        view.measure(
+                View.MeasureSpec.makeMeasureSpec(CHILD_SIZE * 4, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(CHILD_SIZE, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, CHILD_SIZE * 4, CHILD_SIZE);
+    }
+
+    private static class StubAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        private int itemCount;
+
+        private StubAdapter(int itemCount) {
+            this.itemCount = itemCount;
+        }
+
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View itemView = new View(parent.getContext());
+            itemView.setLayoutParams(new DiscreteScrollLayoutManager.LayoutParams(CHILD_SIZE, CHILD_SIZE));
+            return new RecyclerView.ViewHolder(itemView) {};
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position;
+        }
+
+        @Override
+        public int getItemCount() {
+            return itemCount;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.yarolegovich.discretescrollview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ItemSizeIndexTest {
+
+    private static final int ITEM_COUNT = 100;
+    private static final int ESTIMATED_SIZE = 50;
+
+    private ItemSizeIndex index;
+
+    @Before
+    public void setUp() {
+        index = new ItemSizeIndex();
+        index.reset(ITEM_COUNT, ESTIMATED_SIZE);
+    }
+
+    @Test
+    public void getOffset_noItemsMeasured_offsetIsBasedOnEstimate() {
+        assertThat(index.getOffset(10), is(10L * ESTIMATED_SIZE));
+        assertThat(index.getTotalSize(), is((long) ITEM_COUNT * ESTIMATED_SIZE));
+    }
+
+    @Test
+    public void getOffset_itemMeasured_offsetsAfterItemAreShifted() {
+        index.setSize(5, ESTIMATED_SIZE + 30);
+
+        assertThat(index.getOffset(5), is(5L * ESTIMATED_SIZE));
+        assertThat(index.getOffset(6), is(6L * ESTIMATED_SIZE + 30));
+        assertThat(index.getOffset(ITEM_COUNT), is((long) ITEM_COUNT * ESTIMATED_SIZE + 30));
+    }
+
+    @Test
+    public void getPositionAt_returnsItemContainingOffset() {
+        index.setSize(0, 200);
+        index.setSize(1, 10);
+
+        assertThat(index.getPositionAt(0), is(0));
+        assertThat(index.getPositionAt(199), is(0));
+        assertThat(index.getPositionAt(200), is(1));
+        assertThat(index.getPositionAt(210), is(2));
+        assertThat(index.getPositionAt(210 + ESTIMATED_SIZE * 3 + 1), is(5));
+    }
+
+    @Test
+    public void getPositionAt_offsetAfterLastItem_returnsLastItem() {
+        assertThat(index.getPositionAt(Long.MAX_VALUE / 2), is(ITEM_COUNT - 1));
+    }
+
+    @Test
+    public void insert_measuredSizesAreShiftedAndOffsetsAreUpdated() {
+        index.setSize(3, 500);
+        index.setSize(10, 20);
+
+        index.insert(5, 2);
+
+        assertThat(index.getItemCount(), is(ITEM_COUNT + 2));
+        assertThat(index.getSize(3), is(500));
+        assertThat(index.getSize(5), is(ESTIMATED_SIZE));
+        assertThat(index.getSize(12), is(20));
+        assertThat(index.getOffset(13), is(11L * ESTIMATED_SIZE + 500 + 20));
+        assertThat(index.getTotalSize(), is((ITEM_COUNT + 2L) * ESTIMATED_SIZE + (500 - ESTIMATED_SIZE) + (20 - ESTIMATED_SIZE)));
+    }
+
+    @Test
+    public void remove_measuredSizesAfterRangeAreShifted() {
+        index.setSize(3, 500);
+        index.setSize(10, 20);
+
+        index.remove(3, 2);
+
+        assertThat(index.getItemCount(), is(ITEM_COUNT - 2));
+        assertThat(index.getSize(3), is(ESTIMATED_SIZE));
+        assertThat(index.getSize(8), is(20));
+        assertThat(index.getTotalSize(), is((ITEM_COUNT - 2L) * ESTIMATED_SIZE + (20 - ESTIMATED_SIZE)));
+    }
+
+    @Test
+    public void move_measuredSizeMovesWithItem() {
+        index.setSize(2, 500);
+        index.setSize(6, 20);
+
+        index.move(2, 6);
+
+        assertThat(index.getSize(5), is(20));
+        assertThat(index.getSize(6), is(500));
+        assertThat(index.getOffset(6), is(6L * ESTIMATED_SIZE + (20 - ESTIMATED_SIZE)));
+    }
+
+    @Test
+    public void invalidate_onlySizesInRangeAreDiscarded() {
+        index.setSize(2, 500);
+        index.setSize(6, 20);
+
+        index.invalidate(5, 3);
+
+        assertThat(index.getSize(2), is(500));
+        assertThat(index.getSize(6), is(ESTIMATED_SIZE));
+        assertThat(index.getTotalSize(), is((long) ITEM_COUNT * ESTIMATED_SIZE + (500 - ESTIMATED_SIZE)));
+    }
+
+    @Test
+    public void reset_measuredSizesAreDiscarded() {
+        index.setSize(3, 500);
+
+        index.reset(ITEM_COUNT, ESTIMATED_SIZE);
+
+        assertThat(index.getSize(3), is(ESTIMATED_SIZE));
+        assertThat(index.getTotalSize(), is((long) ITEM_COUNT * ESTIMATED_SIZE));
+    }
+}
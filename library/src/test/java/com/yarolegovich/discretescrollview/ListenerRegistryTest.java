@@ -0,0 +1,64 @@
+package com.yarolegovich.discretescrollview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.emptyArray;
+import static org.hamcrest.Matchers.is;
+
+public class ListenerRegistryTest {
+
+    private ListenerRegistry<Object> registry;
+
+    @Before
+    public void setUp() {
+        registry = new ListenerRegistry<>();
+    }
+
+    @Test
+    public void remove_listenersAreComparedByIdentity() {
+        String listener = new String("listener");
+        registry.add(listener);
+
+        assertThat(registry.remove(new String("listener")), is(false));
+        assertThat(registry.remove(listener), is(true));
+        assertThat(registry.isEmpty(), is(true));
+    }
+
+    @Test
+    public void remove_orderOfOtherListenersIsPreserved() {
+        Object first = new Object(), second = new Object(), third = new Object();
+        registry.add(first);
+        registry.add(second);
+        registry.add(third);
+
+        registry.remove(second);
+
+        assertThat(registry.getListeners(), arrayContaining(first, third));
+    }
+
+    @Test
+    public void addAndRemove_duringIteration_iteratedSnapshotIsUnchanged() {
+        Object first = new Object(), second = new Object();
+        registry.add(first);
+        Object[] snapshot = registry.getListeners();
+
+        registry.add(second);
+        registry.remove(first);
+
+        assertThat(snapshot, arrayContaining(first));
+        assertThat(registry.getListeners(), arrayContaining(second));
+    }
+
+    @Test
+    public void remove_lastListener_registryIsEmpty() {
+        Object listener = new Object();
+        registry.add(listener);
+
+        registry.remove(listener);
+
+        assertThat(registry.getListeners(), is(emptyArray()));
+    }
+}
@@ -0,0 +1,265 @@
+package com.yarolegovich.discretescrollview;
+
+import android.content.Context;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.yarolegovich.discretescrollview.transform.ScaleTransformer;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Counts bytes allocated by the scroll frames of the layout manager. Frames go through the listener
+ * dispatch of DiscreteScrollView, ScaleTransformer, edge fill over real views and the start of a settle.
+ * Mocks allocate on every invocation, so everything touched inside of a frame is a plain object.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class ScrollAllocationTest {
+
+    private static final int RECYCLER_WIDTH = 400;
+    private static final int RECYCLER_HEIGHT = 600;
+    private static final int CHILD_WIDTH = 100;
+    private static final int ADAPTER_ITEM_COUNT = 10;
+
+    private static final int WARM_UP_FRAMES = 20000;
+    private static final int MEASURED_FRAMES = 10000;
+    private static final int FRAME_DELTA = 8;
+    //Scroll goes to 10 * FRAME_DELTA in both directions, so that edge items leave and enter the window
+    private static final int FRAMES_PER_CYCLE = 40;
+    //Scroll is released here once per cycle, so that a settle starts and the next drag interrupts it
+    private static final int SETTLE_PHASE = 2;
+    //Fixed bound for JIT and profiler noise, it doesn't grow with the number of frames
+    private static final long MAX_ALLOCATED_BYTES = 1024;
+
+    private com.sun.management.ThreadMXBean threadBean;
+    private DiscreteScrollLayoutManager layoutManager;
+    private LaidOutViewsProxy proxy;
+    private CountingScrollListener scrollListener;
+    private int frame;
+
+    @Before
+    public void setUp() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        DiscreteScrollView view = new DiscreteScrollView(RuntimeEnvironment.application);
+        scrollListener = new CountingScrollListener();
+        view.addScrollStateChangeListener(scrollListener);
+        view.setItemTransformer(new ScaleTransformer.Builder()
+                .setMinScale(0.8f)
+                .build());
+
+        layoutManager = (DiscreteScrollLayoutManager) view.getLayoutManager();
+        proxy = new LaidOutViewsProxy(layoutManager);
+        layoutManager.setRecyclerViewProxy(proxy);
+        layoutManager.setOrientationHelper(new ProxyBoundsHelper(proxy));
+        layoutManager.currentPosition = ADAPTER_ITEM_COUNT / 2;
+
+        RecyclerView.State state = mock(RecyclerView.State.class);
+        when(state.getItemCount()).thenReturn(ADAPTER_ITEM_COUNT);
+        layoutManager.onLayoutChildren(null, state);
+        proxy.recycleScrap();
+    }
+
+    @Test
+    public void scrollBy_fillsEdgesTransformsSettlesAndDispatches() {
+        int laidOutBefore = proxy.laidOutCount;
+
+        runFrames(FRAMES_PER_CYCLE);
+
+        assertThat(proxy.laidOutCount, greaterThan(laidOutBefore));
+        assertThat(proxy.smoothScrollCount, is(1));
+        assertThat(scrollListener.scrollCount, is(FRAMES_PER_CYCLE));
+        assertThat(proxy.getChildAt(0).getScaleX(), lessThan(1f));
+    }
+
+    @Test
+    public void scrollBy_doesNotAllocate() {
+        runFrames(WARM_UP_FRAMES);
+
+        long baseline = measureAllocatedBytes(0);
+        long allocated = measureAllocatedBytes(MEASURED_FRAMES) - baseline;
+
+        assertThat(allocated, lessThan(MAX_ALLOCATED_BYTES));
+    }
+
+    private long measureAllocatedBytes(int frames) {
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        runFrames(frames);
+        return threadBean.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    private void runFrames(int frames) {
+        for (int i = 0; i < frames; i++, frame++) {
+            //Back and forth around the current item, so that it never changes
+            int phase = frame % FRAMES_PER_CYCLE;
+            if (phase == SETTLE_PHASE) {
+                layoutManager.onScrollStateChanged(RecyclerView.SCROLL_STATE_IDLE);
+                layoutManager.onScrollStateChanged(RecyclerView.SCROLL_STATE_DRAGGING);
+            }
+            boolean forward = phase < FRAMES_PER_CYCLE / 4 || phase >= FRAMES_PER_CYCLE * 3 / 4;
+            layoutManager.scrollBy(forward ? FRAME_DELTA : -FRAME_DELTA, null);
+        }
+    }
+
+    //The same check as HorizontalHelper does, but DiscreteScrollView is never measured, so bounds are taken from the proxy
+    private static class ProxyBoundsHelper extends DSVOrientation.HorizontalHelper {
+
+        private final PooledRecyclerViewProxy proxy;
+
+        ProxyBoundsHelper(PooledRecyclerViewProxy proxy) {
+            this.proxy = proxy;
+        }
+
+        @Override
+        public boolean hasNewBecomeVisible(DiscreteScrollLayoutManager lm) {
+            return proxy.hasNewBecomeVisible(lm, true);
+        }
+    }
+
+    //Views are laid out and offset for real, because transformers read their bounds
+    private static class LaidOutViewsProxy extends PooledRecyclerViewProxy {
+
+        private int laidOutCount;
+        private int smoothScrollCount;
+
+        LaidOutViewsProxy(@NonNull RecyclerView.LayoutManager layoutManager) {
+            super(layoutManager,
+                    RECYCLER_WIDTH, RECYCLER_HEIGHT,
+                    CHILD_WIDTH, RECYCLER_HEIGHT,
+                    ADAPTER_ITEM_COUNT);
+        }
+
+        @Override
+        protected View createView() {
+            return new ItemView(RuntimeEnvironment.application);
+        }
+
+        @Override
+        public void layoutDecoratedWithMargins(View v, int left, int top, int right, int bottom) {
+            super.layoutDecoratedWithMargins(v, left, top, right, bottom);
+            v.layout(left, top, right, bottom);
+            laidOutCount++;
+        }
+
+        @Override
+        public void offsetChildrenHorizontal(int amount) {
+            super.offsetChildrenHorizontal(amount);
+            for (int i = 0; i < getChildCount(); i++) {
+                getChildAt(i).offsetLeftAndRight(amount);
+            }
+        }
+
+        @Override
+        public void offsetChildrenVertical(int amount) {
+            super.offsetChildrenVertical(amount);
+            for (int i = 0; i < getChildCount(); i++) {
+                getChildAt(i).offsetTopAndBottom(amount);
+            }
+        }
+
+        @Override
+        public void startSmoothScroll(RecyclerView.SmoothScroller smoothScroller) {
+            smoothScrollCount++;
+        }
+    }
+
+    /**
+     * Transform properties are kept in fields. Robolectric's Matrix records every operation,
+     * so a real View would allocate in offsetLeftAndRight once it is scaled.
+     */
+    private static class ItemView extends View {
+
+        private float scaleX = 1f, scaleY = 1f;
+        private float pivotX, pivotY;
+
+        ItemView(Context context) {
+            super(context);
+            setLayoutParams(new DiscreteScrollLayoutManager.LayoutParams(CHILD_WIDTH, RECYCLER_HEIGHT));
+        }
+
+        @Override
+        public float getScaleX() {
+            return scaleX;
+        }
+
+        @Override
+        public void setScaleX(float scaleX) {
+            this.scaleX = scaleX;
+        }
+
+        @Override
+        public float getScaleY() {
+            return scaleY;
+        }
+
+        @Override
+        public void setScaleY(float scaleY) {
+            this.scaleY = scaleY;
+        }
+
+        @Override
+        public float getPivotX() {
+            return pivotX;
+        }
+
+        @Override
+        public void setPivotX(float pivotX) {
+            this.pivotX = pivotX;
+        }
+
+        @Override
+        public float getPivotY() {
+            return pivotY;
+        }
+
+        @Override
+        public void setPivotY(float pivotY) {
+            this.pivotY = pivotY;
+        }
+    }
+
+    private static class CountingScrollListener
+            implements DiscreteScrollView.ScrollStateChangeListener<RecyclerView.ViewHolder> {
+
+        private int scrollCount;
+
+        @Override
+        public void onScrollStart(@NonNull RecyclerView.ViewHolder currentItemHolder, int adapterPosition) {
+        }
+
+        @Override
+        public void onScrollEnd(@NonNull RecyclerView.ViewHolder currentItemHolder, int adapterPosition) {
+        }
+
+        @Override
+        public void onScroll(float scrollPosition, int currentPosition, int newPosition,
+                             @Nullable RecyclerView.ViewHolder currentHolder,
+                             @Nullable RecyclerView.ViewHolder newCurrent) {
+            scrollCount++;
+        }
+    }
+}
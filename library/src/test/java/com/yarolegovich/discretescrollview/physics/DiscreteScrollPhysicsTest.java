@@ -0,0 +1,65 @@
+package com.yarolegovich.discretescrollview.physics;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class DiscreteScrollPhysicsTest {
+
+    private static final int ITEM_SIZE = 300;
+    private static final int TIME_FOR_ITEM_SETTLE = 150;
+
+    @Test
+    public void decay_settleThroughOneItem_durationMatchesLinearSmoothScroller() {
+        DecayScrollPhysics physics = new DecayScrollPhysics();
+
+        int duration = physics.prepareSettle(ITEM_SIZE, 0, ITEM_SIZE, TIME_FOR_ITEM_SETTLE);
+
+        assertThat(duration, is((int) Math.ceil(TIME_FOR_ITEM_SETTLE / 0.3356f)));
+    }
+
+    @Test
+    public void decay_settleThroughManyItems_durationGrowsSlowerThanDistance() {
+        DecayScrollPhysics physics = new DecayScrollPhysics();
+        int oneItem = physics.prepareSettle(ITEM_SIZE, 0, ITEM_SIZE, TIME_FOR_ITEM_SETTLE);
+
+        int fourItems = physics.prepareSettle(ITEM_SIZE * 4, 0, ITEM_SIZE, TIME_FOR_ITEM_SETTLE);
+
+        assertThat(fourItems, greaterThan(oneItem));
+        assertThat(fourItems, lessThan(oneItem * 4));
+    }
+
+    @Test
+    public void decay_fastFling_settleIsShorter() {
+        DecayScrollPhysics physics = new DecayScrollPhysics();
+        int noVelocity = physics.prepareSettle(ITEM_SIZE, 0, ITEM_SIZE, TIME_FOR_ITEM_SETTLE);
+
+        int fling = physics.prepareSettle(ITEM_SIZE, 10000, ITEM_SIZE, TIME_FOR_ITEM_SETTLE);
+
+        assertThat(fling, lessThan(noVelocity));
+    }
+
+    @Test
+    public void spring_fastFling_neverOvershoots() {
+        SpringScrollPhysics physics = new SpringScrollPhysics();
+        physics.prepareSettle(ITEM_SIZE, 20000, ITEM_SIZE, TIME_FOR_ITEM_SETTLE);
+
+        for (int i = 0; i <= 100; i++) {
+            assertThat(physics.getInterpolation(i / 100f), lessThanOrEqualTo(1f));
+        }
+        assertThat(physics.getInterpolation(1f), is(1f));
+    }
+
+    @Test
+    public void linear_noVelocity_takesTimeForItemSettlePerItem() {
+        LinearScrollPhysics physics = new LinearScrollPhysics();
+
+        int duration = physics.prepareSettle(ITEM_SIZE * 2, 0, ITEM_SIZE, TIME_FOR_ITEM_SETTLE);
+
+        assertThat(duration, is(TIME_FOR_ITEM_SETTLE * 2));
+    }
+}
@@ -36,6 +36,16 @@ public class StubRecyclerViewProxy extends RecyclerViewProxy {
         removeAllViews();
     }
 
+    @Override
+    public void removeAndRecycleView(View view, RecyclerView.Recycler recycler) {
+        for (int i = 0; i < children.size(); i++) {
+            if (children.get(i).view == view) {
+                children.remove(i);
+                return;
+            }
+        }
+    }
+
     @Override
     public int getChildCount() {
         return children.size();
@@ -54,6 +64,21 @@ public class StubRecyclerViewProxy extends RecyclerViewProxy {
         throw new IndexOutOfBoundsException();
     }
 
+    @Override
+    public View getMeasuredChildForAdapterPosition(int position, int width, int height, RecyclerView.Recycler recycler) {
+        return getMeasuredChildForAdapterPosition(position, recycler);
+    }
+
+    @Override
+    public void measureChild(View view) {
+        //NOP
+    }
+
+    @Override
+    public void measureChildExactly(View view, int width, int height) {
+        //NOP
+    }
+
     @Override
     public View getChildAt(int index) {
         return children.get(index).view;
@@ -0,0 +1,90 @@
+package com.yarolegovich.discretescrollview.transform;
+
+import android.view.View;
+import android.view.animation.Interpolator;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class PipelineTransformerTest {
+
+    private static final double TOLERANCE = 0.0001;
+
+    @Test
+    public void transformItem_linearStage_valuesMatchCurve() {
+        PipelineTransformer transformer = new PipelineTransformer.Builder()
+                .scale(0.8f, 1f)
+                .build();
+        View view = new View(RuntimeEnvironment.application);
+
+        transformer.transformItem(view, 0f);
+        assertThat((double) view.getScaleX(), closeTo(1.0, TOLERANCE));
+
+        transformer.transformItem(view, 0.5f);
+        assertThat((double) view.getScaleX(), closeTo(0.9, TOLERANCE));
+        assertThat((double) view.getScaleY(), closeTo(0.9, TOLERANCE));
+
+        transformer.transformItem(view, -1f);
+        assertThat((double) view.getScaleX(), closeTo(0.8, TOLERANCE));
+    }
+
+    @Test
+    public void transformItem_asymmetricStage_sidesHaveDifferentValues() {
+        PipelineTransformer transformer = new PipelineTransformer.Builder()
+                .rotationY(30f)
+                .alpha(0.5f, 1f)
+                .build();
+        View view = new View(RuntimeEnvironment.application);
+
+        transformer.transformItem(view, -1f);
+        assertThat((double) view.getRotationY(), closeTo(30.0, TOLERANCE));
+        assertThat((double) view.getAlpha(), closeTo(0.5, TOLERANCE));
+
+        transformer.transformItem(view, 1f);
+        assertThat((double) view.getRotationY(), closeTo(-30.0, TOLERANCE));
+        assertThat((double) view.getAlpha(), closeTo(0.5, TOLERANCE));
+    }
+
+    @Test
+    public void transformItem_valueUnchanged_propertyIsNotSet() {
+        PipelineTransformer transformer = new PipelineTransformer.Builder()
+                .alpha(0.5f, 1f)
+                .build();
+        View view = mock(View.class);
+        when(view.getAlpha()).thenReturn(1f);
+
+        transformer.transformItem(view, 0f);
+
+        verify(view, never()).setAlpha(1f);
+    }
+
+    @Test
+    public void addStage_interpolatorIsSampledByClosenessToCenter() {
+        PipelineTransformer transformer = new PipelineTransformer.Builder()
+                .addStage(ItemProperty.TRANSLATION_Y, 100f, 0f, 100f, new Interpolator() {
+                    @Override
+                    public float getInterpolation(float input) {
+                        return input * input;
+                    }
+                })
+                .build();
+        View view = new View(RuntimeEnvironment.application);
+
+        transformer.transformItem(view, 0.5f);
+
+        assertThat((double) view.getTranslationY(), is(closeTo(75.0, 0.01)));
+    }
+}
@@ -0,0 +1,47 @@
+package com.yarolegovich.discretescrollview.transform;
+
+import android.view.View;
+
+import org.junit.Test;
+
+import static org.mockito.ArgumentMatchers.anyFloat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PivotTest {
+
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 100;
+
+    @Test
+    public void setOn_pivotAlreadySet_pivotIsNotSetAgain() {
+        View view = mockView(WIDTH * 0.5f, HEIGHT);
+
+        Pivot.X.CENTER.create().setOn(view);
+        Pivot.Y.BOTTOM.create().setOn(view);
+
+        verify(view, never()).setPivotX(anyFloat());
+        verify(view, never()).setPivotY(anyFloat());
+    }
+
+    @Test
+    public void setOn_sizeChanged_pivotIsUpdated() {
+        View view = mockView(WIDTH * 0.5f, HEIGHT);
+        when(view.getWidth()).thenReturn(WIDTH * 2);
+
+        Pivot.X.CENTER.create().setOn(view);
+
+        verify(view).setPivotX(WIDTH);
+    }
+
+    private View mockView(float pivotX, float pivotY) {
+        View view = mock(View.class);
+        when(view.getWidth()).thenReturn(WIDTH);
+        when(view.getHeight()).thenReturn(HEIGHT);
+        when(view.getPivotX()).thenReturn(pivotX);
+        when(view.getPivotY()).thenReturn(pivotY);
+        return view;
+    }
+}
@@ -35,6 +35,7 @@ public class GalleryActivity extends AppCompatActivity implements
         Gallery gallery = Gallery.get();
         List<Image> data = gallery.getData();
         DiscreteScrollView itemPicker = findViewById(R.id.item_picker);
+        itemPicker.setItemSizeFraction(1f, 0.6f);
         itemPicker.setAdapter(new GalleryAdapter(data));
         itemPicker.addScrollListener(this);
         itemPicker.addOnItemChangedListener(this);
@@ -1,7 +1,5 @@
 package com.yarolegovich.discretescrollview.sample.gallery;
 
-import android.app.Activity;
-import android.graphics.Point;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -22,31 +20,17 @@ import java.util.List;
 
 public class GalleryAdapter extends RecyclerView.Adapter<GalleryAdapter.ViewHolder> {
 
-    private int itemHeight;
     private List<Image> data;
 
     public GalleryAdapter(List<Image> data) {
         this.data = data;
     }
 
-    @Override
-    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
-        super.onAttachedToRecyclerView(recyclerView);
-        Activity context = (Activity) recyclerView.getContext();
-        Point windowDimensions = new Point();
-        context.getWindowManager().getDefaultDisplay().getSize(windowDimensions);
-        itemHeight = Math.round(windowDimensions.y * 0.6f);
-    }
-
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
         LayoutInflater inflater = LayoutInflater.from(parent.getContext());
         View v = inflater.inflate(R.layout.item_gallery, parent, false);
-        ViewGroup.LayoutParams params = new ViewGroup.LayoutParams(
-                ViewGroup.LayoutParams.MATCH_PARENT,
-                itemHeight);
-        v.setLayoutParams(params);
         return new ViewHolder(v);
     }
 